@@ -5,14 +5,30 @@ import com.muralia.api.model.LoginRequest;
 import com.muralia.api.model.RegisterRequest;
 import com.muralia.entity.CustomerEntity;
 import com.muralia.repository.CustomerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -174,4 +190,188 @@ public class AuthenticationIntegrationTest extends BaseIntegrationTest {
                 // JWT should have 3 parts separated by dots
                 .andExpect(jsonPath("$.token").value(matchesRegex("^[A-Za-z0-9-_]+\\.[A-Za-z0-9-_]+\\.[A-Za-z0-9-_]+$")));
     }
+
+    @Test
+    public void testJwtAuthenticatesRepeatedlyAndRejectsTampering() throws Exception {
+        CustomerEntity customer = CustomerEntity.builder()
+                .email("reuse@test.com")
+                .username("reuseuser")
+                .password(passwordEncoder.encode("Password123"))
+                .firstName("Reuse")
+                .lastName("User")
+                .build();
+        customerRepository.save(customer);
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("reuse@test.com");
+        loginRequest.setPassword("Password123");
+
+        String response = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String token = objectMapper.readTree(response).get("token").asText();
+
+        // Authenticated requests get past security (404 for an unknown upload session);
+        // the second one is served from the verified-token cache
+        UUID unknownUpload = UUID.randomUUID();
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/uploads/{uploadId}", unknownUpload).header("Authorization", "Bearer " + token))
+                    .andExpect(status().isNotFound());
+        }
+
+        // A token with an altered signature must not hit the cache or verify
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        mockMvc.perform(get("/api/uploads/{uploadId}", unknownUpload).header("Authorization", "Bearer " + tampered))
+                .andExpect(status().isForbidden());
+    }
+
+    /**
+     * Principals loaded from the database and cached, in a context of its own.
+     */
+    @Nested
+    @TestPropertySource(properties = "muralia.security.principal.mode=cache")
+    class CachedPrincipals {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Autowired
+        private CustomerRepository customerRepository;
+
+        @Autowired
+        private PasswordEncoder passwordEncoder;
+
+        @Test
+        public void testCachedPrincipal_CustomerUpdated_ReResolved() throws Exception {
+            CustomerEntity customer = saveCustomer("cached@test.com", "cacheduser");
+            String token = login("cached@test.com");
+            UUID unknownUpload = UUID.randomUUID();
+
+            // Authenticated (404 for an unknown upload session), the principal is cached from here on
+            mockMvc.perform(get("/api/uploads/{uploadId}", unknownUpload).header("Authorization", "Bearer " + token))
+                    .andExpect(status().isNotFound());
+
+            // An unrelated change drops the entry, and the customer is simply looked up again
+            customer.setFirstName("Renamed");
+            customer = customerRepository.save(customer);
+            mockMvc.perform(get("/api/uploads/{uploadId}", unknownUpload).header("Authorization", "Bearer " + token))
+                    .andExpect(status().isNotFound());
+
+            // Once the token's email no longer belongs to the customer, the cached principal must not be used
+            customer.setEmail("moved@test.com");
+            customerRepository.save(customer);
+            mockMvc.perform(get("/api/uploads/{uploadId}", unknownUpload).header("Authorization", "Bearer " + token))
+                    .andExpect(status().isForbidden());
+        }
+
+        @Test
+        public void testCachedPrincipal_CustomerDeleted_Rejected() throws Exception {
+            CustomerEntity customer = saveCustomer("deleted@test.com", "deleteduser");
+            String token = login("deleted@test.com");
+            UUID unknownUpload = UUID.randomUUID();
+
+            mockMvc.perform(get("/api/uploads/{uploadId}", unknownUpload).header("Authorization", "Bearer " + token))
+                    .andExpect(status().isNotFound());
+
+            customerRepository.delete(customer);
+            mockMvc.perform(get("/api/uploads/{uploadId}", unknownUpload).header("Authorization", "Bearer " + token))
+                    .andExpect(status().isForbidden());
+        }
+
+        private CustomerEntity saveCustomer(String email, String username) {
+            return customerRepository.save(CustomerEntity.builder()
+                    .email(email)
+                    .username(username)
+                    .password(passwordEncoder.encode("Password123"))
+                    .firstName("Cached")
+                    .lastName("User")
+                    .build());
+        }
+
+        private String login(String email) throws Exception {
+            LoginRequest loginRequest = new LoginRequest();
+            loginRequest.setEmail(email);
+            loginRequest.setPassword("Password123");
+
+            String response = mockMvc.perform(post("/api/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(loginRequest)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            return objectMapper.readTree(response).get("token").asText();
+        }
+    }
+
+    /**
+     * One hashing thread and no queue, in a context of its own, so concurrent logins overflow the pool.
+     */
+    @Nested
+    @TestPropertySource(properties = {
+            "muralia.security.password-hashing.threads=1",
+            "muralia.security.password-hashing.queue-capacity=0"
+    })
+    class SaturatedPasswordHashing {
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Autowired
+        private CustomerRepository customerRepository;
+
+        @Autowired
+        private PasswordEncoder passwordEncoder;
+
+        @Autowired
+        private MeterRegistry meterRegistry;
+
+        @Test
+        public void testConcurrentLogins_HashingSaturated_ServiceUnavailable() throws Exception {
+            CustomerEntity customer = CustomerEntity.builder()
+                    .email("storm@test.com")
+                    .username("stormuser")
+                    .password(passwordEncoder.encode("Password123"))
+                    .firstName("Storm")
+                    .lastName("User")
+                    .build();
+            customerRepository.save(customer);
+
+            LoginRequest loginRequest = new LoginRequest();
+            loginRequest.setEmail("storm@test.com");
+            loginRequest.setPassword("Password123");
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                    .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(loginRequest)))
+                    .build();
+            Timer matches = meterRegistry.get("muralia.password.hashing").tag("operation", "matches").timer();
+            long checksBefore = matches.count();
+
+            // Real connections, so the logins reach the hashing pool at the same time
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            List<CompletableFuture<HttpResponse<String>>> pending = IntStream.range(0, 20)
+                    .mapToObj(i -> client.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                    .toList();
+            List<HttpResponse<String>> responses = pending.stream().map(CompletableFuture::join).toList();
+
+            List<HttpResponse<String>> accepted = responses.stream().filter(r -> r.statusCode() == 200).toList();
+            List<HttpResponse<String>> rejected = responses.stream().filter(r -> r.statusCode() == 503).toList();
+            assertThat(accepted).isNotEmpty();
+            assertThat(rejected).isNotEmpty();
+            assertThat(accepted.size() + rejected.size()).isEqualTo(responses.size());
+            assertThat(rejected).allSatisfy(response -> {
+                assertThat(response.headers().firstValue("Retry-After")).hasValue("1");
+                assertThat(objectMapper.readTree(response.body()).get("status").asInt()).isEqualTo(503);
+            });
+
+            // Only the checks that ran are timed; rejected logins never reached the encoder
+            assertThat(matches.count() - checksBefore).isEqualTo(accepted.size());
+        }
+    }
 }
@@ -0,0 +1,196 @@
+package com.muralia;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muralia.api.model.Image;
+import com.muralia.entity.CustomerEntity;
+import com.muralia.repository.CustomerRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests the image lifecycle with the filesystem blob store backend.
+ */
+@DisplayName("Filesystem Storage Integration Tests")
+class FileSystemStorageIntegrationTest extends BaseIntegrationTest {
+
+    @TempDir
+    static Path storageRoot;
+
+    @DynamicPropertySource
+    static void storageProperties(DynamicPropertyRegistry registry) {
+        registry.add("muralia.storage.backend", () -> "filesystem");
+        registry.add("muralia.storage.filesystem.root", () -> storageRoot.toString());
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @LocalServerPort
+    private int port;
+
+    private String authToken;
+
+    private static final String TEST_PASSWORD = "Test123!";
+
+    @BeforeEach
+    void setUp() throws Exception {
+        customerRepository.deleteAll();
+        // Cascaded image deletes bypass blob reference counting, start from an empty blob catalog
+        jdbcTemplate.update("DELETE FROM thumbnails");
+        jdbcTemplate.update("DELETE FROM blobs");
+        jdbcTemplate.update("DELETE FROM image_blobs");
+        customerRepository.save(CustomerEntity.builder()
+                .email("fs@example.com")
+                .username("fsuser")
+                .password(passwordEncoder.encode(TEST_PASSWORD))
+                .build());
+
+        MvcResult login = mockMvc.perform(post("/api/auth/login")
+                        .contentType("application/json")
+                        .content("{\"email\":\"fs@example.com\",\"password\":\"" + TEST_PASSWORD + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        authToken = objectMapper.readTree(login.getResponse().getContentAsString()).get("token").asText();
+    }
+
+    @Test
+    @DisplayName("should store uploads on disk, serve them and remove them on delete")
+    void shouldStoreServeAndDeleteFromFilesystem() throws Exception {
+        // given
+        byte[] imageData = getClass().getClassLoader()
+                .getResourceAsStream("images/sample-001.jpg")
+                .readAllBytes();
+        MockMultipartFile file = new MockMultipartFile("file", "sample-001.jpg", "image/jpeg", imageData);
+
+        // when - upload
+        MvcResult upload = mockMvc.perform(multipart("/api/images")
+                        .file(file)
+                        .param("title", "On disk")
+                        .header("Authorization", "Bearer " + authToken)
+                        .with(csrf()))
+                .andExpect(status().isCreated())
+                .andReturn();
+        Image image = objectMapper.readValue(upload.getResponse().getContentAsString(), Image.class);
+
+        // then - the blob is a file below the storage root
+        String storageKey = jdbcTemplate.queryForObject("SELECT storage_key FROM blobs", String.class);
+        assertThat(findBlobFile(storageKey)).isPresent();
+
+        // when - download
+        MvcResult download = mockMvc.perform(get("/api/images/{imageId}/file", image.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/jpeg"))
+                .andReturn();
+
+        // then
+        assertThat(download.getResponse().getContentAsByteArray()).isEqualTo(imageData);
+
+        // when - delete
+        mockMvc.perform(delete("/api/images/{imageId}", image.getId())
+                        .header("Authorization", "Bearer " + authToken)
+                        .with(csrf()))
+                .andExpect(status().isNoContent());
+
+        // then - the original and any thumbnails already generated are gone
+        assertThat(findBlobFile(storageKey)).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM thumbnails", Integer.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("should accept resumable uploads above the database backend limit")
+    void shouldAcceptLargeResumableUploads() throws Exception {
+        // when / then
+        mockMvc.perform(post("/api/uploads")
+                        .contentType("application/json")
+                        .content("{\"fileName\":\"large.jpg\",\"fileSize\":52428800}")
+                        .header("Authorization", "Bearer " + authToken)
+                        .with(csrf()))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.fileSize").value(52428800));
+    }
+
+    @Test
+    @DisplayName("should count image bytes handed to sendfile as bytes sent")
+    void shouldCountSendfileBytes() throws Exception {
+        // given - large enough for sendfile, served by the real connector
+        byte[] imageData = getClass().getClassLoader()
+                .getResourceAsStream("images/sample-001.jpg")
+                .readAllBytes();
+        MvcResult upload = mockMvc.perform(multipart("/api/images")
+                        .file(new MockMultipartFile("file", "sample-001.jpg", "image/jpeg", imageData))
+                        .param("title", "Sendfile")
+                        .header("Authorization", "Bearer " + authToken)
+                        .with(csrf()))
+                .andExpect(status().isCreated())
+                .andReturn();
+        Image image = objectMapper.readValue(upload.getResponse().getContentAsString(), Image.class);
+        double sentBefore = bytesSent();
+
+        // when
+        HttpResponse<byte[]> download = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/images/" + image.getId() + "/file")).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+
+        // then
+        assertThat(download.body()).isEqualTo(imageData);
+        assertThat(bytesSent() - sentBefore).isEqualTo(imageData.length);
+    }
+
+    private double bytesSent() {
+        DistributionSummary summary = meterRegistry.find("muralia.http.server.bytes.sent")
+                .tag("uri", "/api/images/{imageId}/file")
+                .summary();
+        return summary != null ? summary.totalAmount() : 0;
+    }
+
+    private Optional<Path> findBlobFile(String storageKey) throws IOException {
+        try (Stream<Path> files = Files.walk(storageRoot)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().equals(storageKey))
+                    .findFirst();
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package com.muralia;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.muralia.entity.CustomerEntity;
+import com.muralia.repository.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives a mixed workload over HTTP against the application and the shared PostgreSQL container:
+ * gallery listing, file downloads, uploads and logins, weighted by a configurable mix.
+ *
+ * A closed model: each of {@code concurrency} virtual-thread clients sends its next request as soon as
+ * the previous one is answered, for the warmup and then the measured duration. Latency percentiles,
+ * throughput and status codes per operation are written as JSON and HTML to
+ * {@code build/reports/load-test}. Run with {@code ./gradlew loadTest}, optionally with
+ * {@code -Pload.concurrency=64 -Pload.duration=PT2M -Pload.warmup=PT10S -Pload.mix=list:70,download:30}.
+ */
+@Tag("load")
+@DisplayName("Gallery load test")
+class GalleryLoadTest extends BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(GalleryLoadTest.class);
+
+    private static final int CUSTOMERS = 20;
+    private static final int SEED_IMAGES = 100;
+    private static final int UPLOAD_EDGE = 96;
+    private static final String PASSWORD = "Load123!";
+
+    @DynamicPropertySource
+    static void loadTestProperties(DynamicPropertyRegistry registry) {
+        // The test profile logs every statement, which would dominate the measurements
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("logging.level.com.muralia", () -> "INFO");
+        registry.add("logging.level.org.hibernate.SQL", () -> "INFO");
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LoadSettings settings = LoadSettings.fromSystemProperties();
+    private HttpClient client;
+    private List<String> emails;
+    private List<String> tokens;
+    private List<UUID> imageIds;
+
+    enum Operation {
+        LIST, DOWNLOAD, UPLOAD, LOGIN
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        customerRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM thumbnails");
+        jdbcTemplate.update("DELETE FROM blobs");
+        jdbcTemplate.update("DELETE FROM image_blobs");
+
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        String encodedPassword = passwordEncoder.encode(PASSWORD);
+        emails = new ArrayList<>();
+        tokens = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            String email = "load" + i + "@example.com";
+            customerRepository.save(CustomerEntity.builder()
+                    .email(email)
+                    .username("load" + i)
+                    .password(encodedPassword)
+                    .build());
+            HttpResponse<String> login = client.send(loginRequest(email), HttpResponse.BodyHandlers.ofString());
+            assertThat(login.statusCode()).isEqualTo(200);
+            emails.add(email);
+            tokens.add(objectMapper.readTree(login.body()).get("token").asText());
+        }
+
+        Random random = new Random(1);
+        imageIds = new ArrayList<>();
+        for (int i = 0; i < SEED_IMAGES; i++) {
+            HttpResponse<String> upload = client.send(uploadRequest(random), HttpResponse.BodyHandlers.ofString());
+            assertThat(upload.statusCode()).isEqualTo(201);
+            imageIds.add(UUID.fromString(objectMapper.readTree(upload.body()).get("id").asText()));
+        }
+    }
+
+    @Test
+    @DisplayName("should sustain the mixed gallery workload")
+    void runMixedWorkload() throws Exception {
+        long warmupEnd = System.nanoTime() + settings.warmup().toNanos();
+        long end = warmupEnd + settings.duration().toNanos();
+
+        List<Recorder> recorders = new ArrayList<>();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Recorder>> workers = new ArrayList<>();
+            for (int i = 0; i < settings.concurrency(); i++) {
+                long seed = i;
+                workers.add(clients.submit(() -> work(new Random(seed), warmupEnd, end)));
+            }
+            for (Future<Recorder> worker : workers) {
+                recorders.add(worker.get());
+            }
+        }
+
+        Recorder total = new Recorder();
+        recorders.forEach(total::merge);
+        Map<String, Object> report = report(total);
+        writeReports(report);
+
+        assertThat(total.successes()).isPositive();
+    }
+
+    private Recorder work(Random random, long warmupEnd, long end) throws InterruptedException {
+        Recorder recorder = new Recorder();
+        while (true) {
+            Operation operation = settings.pick(random);
+            // Request bodies are built before the clock starts
+            HttpRequest request = request(operation, random);
+
+            long started = System.nanoTime();
+            if (started >= end) {
+                return recorder;
+            }
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            }
+            if (started >= warmupEnd) {
+                recorder.record(operation, System.nanoTime() - started, status);
+            }
+        }
+    }
+
+    private HttpRequest request(Operation operation, Random random) {
+        return switch (operation) {
+            case LIST -> HttpRequest.newBuilder(uri("/api/images?limit=12&offset=0")).GET().build();
+            case DOWNLOAD -> HttpRequest.newBuilder(uri("/api/images/" + imageIds.get(random.nextInt(imageIds.size())) + "/file"))
+                    .GET()
+                    .build();
+            case UPLOAD -> uploadRequest(random);
+            case LOGIN -> loginRequest(emails.get(random.nextInt(emails.size())));
+        };
+    }
+
+    private HttpRequest loginRequest(String email) {
+        String body = "{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}";
+        return HttpRequest.newBuilder(uri("/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    /**
+     * A small PNG with random pixels, so every upload is new content rather than a deduplicated copy.
+     */
+    private HttpRequest uploadRequest(Random random) {
+        BufferedImage image = new BufferedImage(UPLOAD_EDGE, UPLOAD_EDGE, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < UPLOAD_EDGE; y++) {
+            for (int x = 0; x < UPLOAD_EDGE; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", png);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        String boundary = "muralia-" + UUID.randomUUID();
+        byte[] head = ("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"title\"\r\n\r\n"
+                + "Load test\r\n"
+                + "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"load.png\"\r\n"
+                + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+        byte[] tail = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+
+        return HttpRequest.newBuilder(uri("/api/images"))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .header("Authorization", "Bearer " + tokens.get(random.nextInt(tokens.size())))
+                .POST(HttpRequest.BodyPublishers.ofByteArrays(List.of(head, png.toByteArray(), tail)))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private Map<String, Object> report(Recorder total) {
+        double seconds = settings.duration().toMillis() / 1000.0;
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            long[] latencies = total.latencies(operation);
+            Arrays.sort(latencies);
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requests", latencies.length);
+            stats.put("throughputPerSecond", round(latencies.length / seconds));
+            stats.put("errors", total.errors(operation));
+            stats.put("statuses", total.statuses(operation));
+            stats.put("meanMillis", round(Arrays.stream(latencies).average().orElse(0) / 1e6));
+            stats.put("p50Millis", percentile(latencies, 50));
+            stats.put("p90Millis", percentile(latencies, 90));
+            stats.put("p99Millis", percentile(latencies, 99));
+            stats.put("maxMillis", percentile(latencies, 100));
+            operations.put(operation.name().toLowerCase(), stats);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("concurrency", settings.concurrency());
+        report.put("durationSeconds", seconds);
+        report.put("warmupSeconds", settings.warmup().toMillis() / 1000.0);
+        report.put("mix", settings.mixDescription());
+        report.put("throughputPerSecond", round(total.requests() / seconds));
+        report.put("operations", operations);
+        return report;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeReports(Map<String, Object> report) throws IOException {
+        String json = objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report);
+        log.info("Gallery load test: {}", json);
+
+        StringBuilder html = new StringBuilder()
+                .append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Muralia load test</title>\n")
+                .append("<style>body{font-family:sans-serif}td,th{padding:4px 12px;text-align:right}</style></head><body>\n")
+                .append("<h1>Muralia load test</h1>\n")
+                .append("<p>").append(report.get("concurrency")).append(" clients, ")
+                .append(report.get("durationSeconds")).append(" s after ")
+                .append(report.get("warmupSeconds")).append(" s warmup, mix ")
+                .append(report.get("mix")).append(", ")
+                .append(report.get("throughputPerSecond")).append(" requests/s</p>\n")
+                .append("<table><tr><th>operation</th><th>requests</th><th>req/s</th><th>errors</th>")
+                .append("<th>mean ms</th><th>p50 ms</th><th>p90 ms</th><th>p99 ms</th><th>max ms</th><th>statuses</th></tr>\n");
+        ((Map<String, Map<String, Object>>) report.get("operations")).forEach((operation, stats) -> {
+            html.append("<tr><th>").append(operation).append("</th>");
+            for (String column : List.of("requests", "throughputPerSecond", "errors", "meanMillis",
+                    "p50Millis", "p90Millis", "p99Millis", "maxMillis", "statuses")) {
+                html.append("<td>").append(stats.get(column)).append("</td>");
+            }
+            html.append("</tr>\n");
+        });
+        html.append("</table></body></html>\n");
+
+        Path directory = Path.of(System.getProperty("muralia.load.reports", "build/reports/load-test"));
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve("report.json"), json);
+        Files.writeString(directory.resolve("report.html"), html);
+    }
+
+    private static double percentile(long[] sortedNanos, int percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sortedNanos.length) - 1;
+        return round(sortedNanos[Math.max(index, 0)] / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * Run parameters, from the {@code muralia.load.*} system properties the loadTest task passes on.
+     */
+    record LoadSettings(int concurrency, Duration duration, Duration warmup, Map<Operation, Integer> mix) {
+
+        static LoadSettings fromSystemProperties() {
+            Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+            for (String entry : System.getProperty("muralia.load.mix", "list:50,download:30,upload:10,login:10").split(",")) {
+                String[] parts = entry.trim().split(":");
+                mix.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+            }
+            return new LoadSettings(
+                    Integer.getInteger("muralia.load.concurrency", 32),
+                    Duration.parse(System.getProperty("muralia.load.duration", "PT30S")),
+                    Duration.parse(System.getProperty("muralia.load.warmup", "PT5S")),
+                    mix);
+        }
+
+        Operation pick(Random random) {
+            int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+            int roll = random.nextInt(total);
+            for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+                roll -= entry.getValue();
+                if (roll < 0) {
+                    return entry.getKey();
+                }
+            }
+            throw new IllegalStateException("Empty workload mix");
+        }
+
+        String mixDescription() {
+            return mix.entrySet().stream()
+                    .map(entry -> entry.getKey().name().toLowerCase() + ":" + entry.getValue())
+                    .reduce((a, b) -> a + "," + b)
+                    .orElse("");
+        }
+    }
+
+    /**
+     * Latencies and status codes per operation, kept per client thread and merged at the end.
+     */
+    static final class Recorder {
+
+        private final Map<Operation, long[]> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, Integer> counts = new EnumMap<>(Operation.class);
+        private final Map<Operation, Map<Integer, Integer>> statuses = new EnumMap<>(Operation.class);
+
+        void record(Operation operation, long nanos, int status) {
+            append(operation, nanos);
+            statuses.computeIfAbsent(operation, key -> new TreeMap<>()).merge(status, 1, Integer::sum);
+        }
+
+        void merge(Recorder other) {
+            for (Operation operation : Operation.values()) {
+                for (long nanos : other.latencies(operation)) {
+                    append(operation, nanos);
+                }
+                other.statuses(operation).forEach((status, count) ->
+                        statuses.computeIfAbsent(operation, key -> new TreeMap<>()).merge(status, count, Integer::sum));
+            }
+        }
+
+        private void append(Operation operation, long nanos) {
+            int count = counts.getOrDefault(operation, 0);
+            long[] values = latencies.computeIfAbsent(operation, key -> new long[1024]);
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+                latencies.put(operation, values);
+            }
+            values[count] = nanos;
+            counts.put(operation, count + 1);
+        }
+
+        long[] latencies(Operation operation) {
+            long[] values = latencies.get(operation);
+            return values == null ? new long[0] : Arrays.copyOf(values, counts.get(operation));
+        }
+
+        Map<Integer, Integer> statuses(Operation operation) {
+            return statuses.getOrDefault(operation, Map.of());
+        }
+
+        long errors(Operation operation) {
+            return statuses(operation).entrySet().stream()
+                    .filter(entry -> entry.getKey() < 200 || entry.getKey() >= 300)
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+        }
+
+        long requests() {
+            return counts.values().stream().mapToLong(Integer::longValue).sum();
+        }
+
+        long successes() {
+            long errors = Arrays.stream(Operation.values()).mapToLong(this::errors).sum();
+            return requests() - errors;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.muralia;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muralia.api.model.Image;
+import com.muralia.entity.CustomerEntity;
+import com.muralia.repository.CustomerRepository;
+import com.muralia.service.ImageCountStrategy;
+import com.muralia.service.impl.EstimatedImageCountStrategy;
+import com.muralia.service.impl.InMemoryImageCountStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Tests the gallery total under the count modes other than {@code exact}, each in a context of its own.
+ */
+@DisplayName("Image Count Strategy Integration Tests")
+class ImageCountStrategyIntegrationTest {
+
+    private static final String TEST_PASSWORD = "Test123!";
+
+    @Nested
+    @DisplayName("Counter mode")
+    @TestPropertySource(properties = "muralia.images.total-count.mode=counter")
+    class CounterModeTests extends BaseIntegrationTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Autowired
+        private CustomerRepository customerRepository;
+
+        @Autowired
+        private PasswordEncoder passwordEncoder;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        private ImageCountStrategy imageCountStrategy;
+
+        private String authToken;
+
+        @BeforeEach
+        void setUp() throws Exception {
+            authToken = resetGallery(mockMvc, objectMapper, customerRepository, passwordEncoder, jdbcTemplate);
+            // The cascaded deletes above raise no events
+            ((InMemoryImageCountStrategy) imageCountStrategy).reconcile();
+        }
+
+        @Test
+        @DisplayName("should follow committed uploads and deletes")
+        void shouldCountUploadsAndDeletes() throws Exception {
+            // given
+            assertThat(imageCountStrategy).isInstanceOf(InMemoryImageCountStrategy.class);
+            assertThat(imageCountStrategy.countImages()).isZero();
+
+            // when
+            UUID first = upload(mockMvc, objectMapper, authToken);
+            upload(mockMvc, objectMapper, authToken);
+
+            // then
+            assertThat(imageCountStrategy.countImages()).isEqualTo(2);
+
+            // when
+            mockMvc.perform(delete("/api/images/{imageId}", first)
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isNoContent());
+
+            // then
+            assertThat(imageCountStrategy.countImages()).isEqualTo(1);
+            mockMvc.perform(get("/api/images"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.total").value(1));
+        }
+
+        @Test
+        @DisplayName("should pick up changes made outside the service when reconciling")
+        void shouldReconcileWithDatabase() throws Exception {
+            // given - a row removed behind the service's back
+            upload(mockMvc, objectMapper, authToken);
+            upload(mockMvc, objectMapper, authToken);
+            jdbcTemplate.update("DELETE FROM images WHERE id = (SELECT id FROM images LIMIT 1)");
+            assertThat(imageCountStrategy.countImages()).isEqualTo(2);
+
+            // when
+            ((InMemoryImageCountStrategy) imageCountStrategy).reconcile();
+
+            // then
+            assertThat(imageCountStrategy.countImages()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Estimate mode")
+    @TestPropertySource(properties = "muralia.images.total-count.mode=estimate")
+    class EstimateModeTests extends BaseIntegrationTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private ObjectMapper objectMapper;
+
+        @Autowired
+        private CustomerRepository customerRepository;
+
+        @Autowired
+        private PasswordEncoder passwordEncoder;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        private ImageCountStrategy imageCountStrategy;
+
+        private String authToken;
+
+        @BeforeEach
+        void setUp() throws Exception {
+            authToken = resetGallery(mockMvc, objectMapper, customerRepository, passwordEncoder, jdbcTemplate);
+        }
+
+        @Test
+        @DisplayName("should count exactly until the table is analyzed, then use the planner estimate")
+        void shouldFallBackToExactCountWithoutStatistics() throws Exception {
+            // given - statistics taken of an empty table, so reltuples is 0
+            assertThat(imageCountStrategy).isInstanceOf(EstimatedImageCountStrategy.class);
+            jdbcTemplate.execute("ANALYZE images");
+            upload(mockMvc, objectMapper, authToken);
+            upload(mockMvc, objectMapper, authToken);
+            assertThat(reltuples()).isLessThanOrEqualTo(0);
+
+            // when / then - the estimate would say 0, the fallback counts the rows
+            assertThat(imageCountStrategy.countImages()).isEqualTo(2);
+
+            // when
+            upload(mockMvc, objectMapper, authToken);
+            jdbcTemplate.execute("ANALYZE images");
+
+            // then - small tables are sampled whole, so the estimate is exact
+            assertThat(reltuples()).isEqualTo(3);
+            assertThat(imageCountStrategy.countImages()).isEqualTo(3);
+            mockMvc.perform(get("/api/images"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.total").value(3));
+        }
+
+        private long reltuples() {
+            return jdbcTemplate.queryForObject(
+                    "SELECT reltuples::bigint FROM pg_class WHERE oid = 'images'::regclass", Long.class);
+        }
+    }
+
+    /**
+     * Empties the gallery and signs in a fresh customer.
+     *
+     * @return the customer's token
+     */
+    private static String resetGallery(MockMvc mockMvc, ObjectMapper objectMapper, CustomerRepository customerRepository,
+                                       PasswordEncoder passwordEncoder, JdbcTemplate jdbcTemplate) throws Exception {
+        customerRepository.deleteAll();
+        // Cascaded image deletes bypass blob reference counting, start from an empty blob catalog
+        jdbcTemplate.update("DELETE FROM thumbnails");
+        jdbcTemplate.update("DELETE FROM blobs");
+        jdbcTemplate.update("DELETE FROM image_blobs");
+        customerRepository.save(CustomerEntity.builder()
+                .email("count@example.com")
+                .username("countuser")
+                .password(passwordEncoder.encode(TEST_PASSWORD))
+                .build());
+
+        MvcResult login = mockMvc.perform(post("/api/auth/login")
+                        .contentType("application/json")
+                        .content("{\"email\":\"count@example.com\",\"password\":\"" + TEST_PASSWORD + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(login.getResponse().getContentAsString()).get("token").asText();
+    }
+
+    private static UUID upload(MockMvc mockMvc, ObjectMapper objectMapper, String authToken) throws Exception {
+        BufferedImage pixels = new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB);
+        pixels.setRGB(0, 0, UUID.randomUUID().hashCode());
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(pixels, "png", png);
+
+        MvcResult result = mockMvc.perform(multipart("/api/images")
+                        .file(new MockMultipartFile("file", "count.png", "image/png", png.toByteArray()))
+                        .param("title", "Counted")
+                        .header("Authorization", "Bearer " + authToken)
+                        .with(csrf()))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), Image.class).getId();
+    }
+}
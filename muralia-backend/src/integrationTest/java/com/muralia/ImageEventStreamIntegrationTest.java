@@ -0,0 +1,115 @@
+package com.muralia;
+
+import com.muralia.event.ImageUploadedEvent;
+import com.muralia.service.image.ImageEventStream;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatConnectorCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the image event stream over real connections, with socket buffers small enough that a client
+ * which stops reading blocks the server's writes after a few kilobytes.
+ */
+@DisplayName("Image Event Stream Integration Tests")
+@Import(ImageEventStreamIntegrationTest.SmallSocketBuffers.class)
+class ImageEventStreamIntegrationTest extends BaseIntegrationTest {
+
+    private static final int STALLED_CLIENTS = 8;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ImageEventStream imageEventStream;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @TestConfiguration
+    static class SmallSocketBuffers {
+
+        @Bean
+        TomcatConnectorCustomizer smallSendBuffer() {
+            return connector -> connector.setProperty("socket.txBufSize", "4096");
+        }
+    }
+
+    @Test
+    @DisplayName("should keep delivering to other subscribers while clients that never read are stalled")
+    void shouldNotLetStalledClientsDelayOthers() throws Exception {
+        List<Socket> stalled = new ArrayList<>();
+        try {
+            // given - more clients that never read than there are CPUs to run blocked writes on
+            for (int i = 0; i < STALLED_CLIENTS; i++) {
+                Socket socket = new Socket();
+                socket.setReceiveBufferSize(1024);
+                socket.connect(new InetSocketAddress("localhost", port));
+                OutputStream out = socket.getOutputStream();
+                out.write(("GET /api/images/stream HTTP/1.1\r\nHost: localhost\r\nAccept: text/event-stream\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                stalled.add(socket);
+            }
+            awaitSubscribers(STALLED_CLIENTS);
+
+            // Far more than the socket buffers hold, so every stalled client ends up blocked in a write
+            for (int i = 0; i < 5_000; i++) {
+                imageEventStream.onImageUploaded(new ImageUploadedEvent(UUID.randomUUID(), "flood"));
+            }
+
+            // when - a client that does read subscribes and an image is uploaded
+            HttpClient client = HttpClient.newHttpClient();
+            CompletableFuture<HttpResponse<Stream<String>>> reader = client.sendAsync(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/images/stream")).build(),
+                    HttpResponse.BodyHandlers.ofLines());
+            awaitSubscribers(STALLED_CLIENTS + 1);
+            UUID imageId = UUID.randomUUID();
+            imageEventStream.onImageUploaded(new ImageUploadedEvent(imageId, "marker"));
+
+            // then
+            boolean delivered = reader
+                    .thenApply(response -> response.body().anyMatch(line -> line.contains(imageId.toString())))
+                    .get(10, TimeUnit.SECONDS);
+            assertThat(delivered).isTrue();
+        } finally {
+            for (Socket socket : stalled) {
+                socket.close();
+            }
+        }
+    }
+
+    private void awaitSubscribers(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (subscribers() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(subscribers()).isGreaterThanOrEqualTo(expected);
+    }
+
+    private double subscribers() {
+        return meterRegistry.get("muralia.images.stream.subscribers").gauge().value();
+    }
+}
@@ -5,22 +5,43 @@ import com.muralia.api.model.Image;
 import com.muralia.api.model.ImageListResponse;
 import com.muralia.entity.CustomerEntity;
 import com.muralia.repository.CustomerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMultipartHttpServletRequestBuilder;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -44,6 +65,18 @@ class ImageIntegrationTest extends BaseIntegrationTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Value("${muralia.uploads.resumable.directory}")
+    private Path uploadDirectory;
+
     private CustomerEntity testCustomer;
     private String authToken;
 
@@ -57,6 +90,10 @@ class ImageIntegrationTest extends BaseIntegrationTest {
     @BeforeEach
     void setUp() throws Exception {
         customerRepository.deleteAll();
+        // Cascaded image deletes bypass blob reference counting, start from an empty blob catalog
+        jdbcTemplate.update("DELETE FROM thumbnails");
+        jdbcTemplate.update("DELETE FROM blobs");
+        jdbcTemplate.update("DELETE FROM image_blobs");
         testCustomer = createTestCustomer("testuser", "test@example.com");
         authToken = obtainAuthToken("test@example.com", TEST_PASSWORD);
     }
@@ -81,6 +118,19 @@ class ImageIntegrationTest extends BaseIntegrationTest {
             assertImageUrl(uploadedImage);
         }
 
+        @Test
+        @DisplayName("should assign time-ordered UUIDv7 ids")
+        void shouldAssignTimeOrderedIds() throws Exception {
+            // when
+            UUID firstId = uploadTestImage("first.jpg", "First");
+            UUID secondId = uploadTestImage("second.jpg", "Second");
+
+            // then - version 7, with the creation time in the leading 48 bits
+            assertThat(firstId.version()).isEqualTo(7);
+            assertThat(secondId.version()).isEqualTo(7);
+            assertThat(firstId.getMostSignificantBits() >>> 16).isLessThanOrEqualTo(secondId.getMostSignificantBits() >>> 16);
+        }
+
         @Test
         @DisplayName("should reject non-image files")
         void shouldRejectNonImageFiles() throws Exception {
@@ -105,6 +155,52 @@ class ImageIntegrationTest extends BaseIntegrationTest {
                     .andExpect(jsonPath("$.message").exists());
         }
 
+        @Test
+        @DisplayName("should reject a non-image above the memory threshold, inspected in place")
+        void shouldRejectLargeNonImageFile() throws Exception {
+            // given - large enough to be taken over as a file rather than buffered
+            MockMultipartFile pdfFile = new MockMultipartFile(
+                    "file",
+                    "document.pdf",
+                    "application/pdf",
+                    new byte[512 * 1024]
+            );
+
+            // when / then
+            mockMvc.perform(multipart("/api/images")
+                            .file(pdfFile)
+                            .param("title", "Large Document")
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value(containsString("application/pdf")));
+        }
+
+        @Test
+        @DisplayName("should detect the image type from the content, not the declared content type")
+        void shouldSniffImageTypeFromContent() throws Exception {
+            // given - a PNG declared as a generic binary, and text declared as a JPEG
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(new BufferedImage(64, 32, BufferedImage.TYPE_INT_RGB), "png", png);
+            MockMultipartFile pngFile = new MockMultipartFile("file", "pixels.bin", "application/octet-stream", png.toByteArray());
+            MockMultipartFile disguisedText = new MockMultipartFile("file", "fake.jpg", TEST_IMAGE_MIME_TYPE,
+                    "This is not an image".getBytes(StandardCharsets.UTF_8));
+
+            // when / then
+            Image image = extractImageFromResponse(performImageUpload(pngFile, "Sniffed", "PNG content"));
+            assertThat(image.getMimeType()).isEqualTo("image/png");
+            assertThat(image.getWidth()).isEqualTo(64);
+            assertThat(image.getHeight()).isEqualTo(32);
+
+            mockMvc.perform(multipart("/api/images")
+                            .file(disguisedText)
+                            .param("title", "Disguised")
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.status").value(400));
+        }
+
         @Test
         @DisplayName("should reject empty files")
         void shouldRejectEmptyFile() throws Exception {
@@ -157,6 +253,8 @@ class ImageIntegrationTest extends BaseIntegrationTest {
             assertThat(uploadedImage.getDescription()).isEqualTo("A real 884KB JPEG image for testing");
             assertThat(uploadedImage.getFileSize()).isEqualTo(imageData.length);
             assertThat(uploadedImage.getUrl().toString()).contains("/api/images/" + uploadedImage.getId() + "/file");
+            assertThat(uploadedImage.getWidth()).isEqualTo(1960);
+            assertThat(uploadedImage.getHeight()).isEqualTo(1226);
 
             // when - retrieve the uploaded file
             MvcResult fileResult = mockMvc.perform(get("/api/images/{imageId}/file", uploadedImage.getId()))
@@ -169,6 +267,315 @@ class ImageIntegrationTest extends BaseIntegrationTest {
             assertThat(retrievedImageData).isEqualTo(imageData);
             assertThat(retrievedImageData.length).isEqualTo(imageData.length);
         }
+
+        @Test
+        @DisplayName("should store the dimensions read from a WebP header")
+        void shouldReadWebpDimensions() throws Exception {
+            // given - a lossless WebP header for 300x200, no decoder needed to read it
+            MockMultipartFile file = new MockMultipartFile("file", "lossless.webp", "image/webp", createWebpHeader(300, 200));
+
+            // when
+            ResultActions result = performImageUpload(file, TEST_IMAGE_TITLE, TEST_IMAGE_DESCRIPTION);
+
+            // then
+            Image uploadedImage = extractImageFromResponse(result);
+            assertThat(uploadedImage.getMimeType()).isEqualTo("image/webp");
+            assertThat(uploadedImage.getWidth()).isEqualTo(300);
+            assertThat(uploadedImage.getHeight()).isEqualTo(200);
+        }
+
+        @Test
+        @DisplayName("should store the displayed dimensions of a JPEG rotated by its Exif orientation")
+        void shouldSwapDimensionsForRotatedJpeg() throws Exception {
+            // given - stored as 64x32, orientation 6 displays it rotated by 90 degrees
+            ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+            ImageIO.write(new BufferedImage(64, 32, BufferedImage.TYPE_INT_RGB), "jpg", jpeg);
+            byte[] imageData = withExifOrientation(jpeg.toByteArray(), 6);
+
+            // when
+            ResultActions result = performImageUpload(createImageFile("rotated.jpg", imageData), TEST_IMAGE_TITLE, TEST_IMAGE_DESCRIPTION);
+
+            // then
+            Image uploadedImage = extractImageFromResponse(result);
+            assertThat(uploadedImage.getWidth()).isEqualTo(32);
+            assertThat(uploadedImage.getHeight()).isEqualTo(64);
+        }
+
+        @Test
+        @DisplayName("should reject an image whose header is truncated")
+        void shouldRejectTruncatedHeader() throws Exception {
+            // given - the PNG signature and the start of its header chunk, cut off before the dimensions
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(new BufferedImage(16, 16, BufferedImage.TYPE_INT_RGB), "png", png);
+            byte[] truncated = Arrays.copyOf(png.toByteArray(), 20);
+            Integer blobsBefore = jdbcTemplate.queryForObject("SELECT count(*) FROM blobs", Integer.class);
+
+            // when / then
+            mockMvc.perform(multipart("/api/images")
+                            .file(new MockMultipartFile("file", "broken.png", "image/png", truncated))
+                            .param("title", TEST_IMAGE_TITLE)
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.status").value(400));
+            assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM blobs", Integer.class)).isEqualTo(blobsBefore);
+        }
+    }
+
+    @Nested
+    @DisplayName("Batch Upload")
+    class BatchUploadTests {
+
+        @Test
+        @DisplayName("should store valid files and report rejected ones per file")
+        void shouldUploadBatchWithPerFileResults() throws Exception {
+            // given - the same photo twice and a text file in between
+            byte[] imageData = loadRealJpegImage();
+            MockMultipartFile first = new MockMultipartFile("files", "first.jpg", TEST_IMAGE_MIME_TYPE, imageData);
+            MockMultipartFile text = new MockMultipartFile("files", "notes.txt", "text/plain",
+                    "This is not an image".getBytes(StandardCharsets.UTF_8));
+            MockMultipartFile second = new MockMultipartFile("files", "second.jpg", TEST_IMAGE_MIME_TYPE, imageData);
+
+            // when
+            mockMvc.perform(multipart("/api/images/batch")
+                            .file(first)
+                            .file(text)
+                            .file(second)
+                            .param("title", "Series")
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andDo(print())
+                    // then - results in request order
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.created").value(2))
+                    .andExpect(jsonPath("$.rejected").value(1))
+                    .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+                    .andExpect(jsonPath("$.results[0].image.fileName").value("first.jpg"))
+                    .andExpect(jsonPath("$.results[0].image.title").value("Series"))
+                    .andExpect(jsonPath("$.results[0].image.width").value(1960))
+                    .andExpect(jsonPath("$.results[1].status").value("REJECTED"))
+                    .andExpect(jsonPath("$.results[1].fileName").value("notes.txt"))
+                    .andExpect(jsonPath("$.results[1].error").exists())
+                    .andExpect(jsonPath("$.results[2].status").value("CREATED"))
+                    .andExpect(jsonPath("$.results[2].image.url").exists());
+
+            // then - both images share one stored copy
+            assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM images", Integer.class)).isEqualTo(2);
+            assertThat(jdbcTemplate.queryForObject("SELECT ref_count FROM blobs", Integer.class)).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("should reject a batch with too many files")
+        void shouldRejectOversizedBatch() throws Exception {
+            // given
+            MockMultipartHttpServletRequestBuilder request = multipart("/api/images/batch");
+            for (int i = 0; i <= 50; i++) {
+                request.file(new MockMultipartFile("files", "image-" + i + ".jpg", TEST_IMAGE_MIME_TYPE, new byte[] {1}));
+            }
+
+            // when / then
+            mockMvc.perform(request
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.status").value(400));
+        }
+    }
+
+    @Nested
+    @DisplayName("Content Deduplication")
+    class ContentDeduplicationTests {
+
+        @Test
+        @DisplayName("should store identical uploads once and keep the content until its last image is deleted")
+        void shouldDeduplicateIdenticalUploads() throws Exception {
+            // given
+            byte[] imageData = loadRealJpegImage();
+
+            // when
+            UUID firstId = uploadTestImage("first.jpg", "First", imageData);
+            UUID secondId = uploadTestImage("second.jpg", "Second", imageData);
+
+            // then - one stored copy referenced twice
+            assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM blobs", Integer.class)).isEqualTo(1);
+            assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM image_blobs", Integer.class)).isEqualTo(1);
+            assertThat(jdbcTemplate.queryForObject("SELECT ref_count FROM blobs", Integer.class)).isEqualTo(2);
+
+            // when - delete the first image
+            mockMvc.perform(delete("/api/images/{imageId}", firstId)
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isNoContent());
+
+            // then - the content survives for the second image
+            assertThat(jdbcTemplate.queryForObject("SELECT ref_count FROM blobs", Integer.class)).isEqualTo(1);
+            MvcResult result = mockMvc.perform(get("/api/images/{imageId}/file", secondId))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            assertThat(result.getResponse().getContentAsByteArray()).isEqualTo(imageData);
+
+            // when - delete the last reference
+            mockMvc.perform(delete("/api/images/{imageId}", secondId)
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isNoContent());
+
+            // then - the content is gone
+            assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM blobs", Integer.class)).isZero();
+            assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM image_blobs", Integer.class)).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Resumable Upload")
+    class ResumableUploadTests {
+
+        @Test
+        @DisplayName("should assemble chunks sent at their offsets into an image")
+        void shouldAssembleChunksIntoImage() throws Exception {
+            // given
+            byte[] imageData = loadRealJpegImage();
+            int split = imageData.length / 2;
+            String createJson = String.format("{\"fileName\":\"%s\",\"fileSize\":%d,\"title\":\"Chunked\"}",
+                    TEST_IMAGE_FILENAME, imageData.length);
+
+            // when - open a session
+            MvcResult created = mockMvc.perform(post("/api/uploads")
+                            .contentType("application/json")
+                            .content(createJson)
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.receivedBytes").value(0))
+                    .andReturn();
+            String uploadId = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asText();
+
+            // when - send the first chunk, then the status reports the offset to resume at
+            performChunk(uploadId, 0, Arrays.copyOfRange(imageData, 0, split))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.receivedBytes").value(split));
+            mockMvc.perform(get("/api/uploads/{uploadId}", uploadId)
+                            .header("Authorization", "Bearer " + authToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.receivedBytes").value(split));
+
+            // then - completing early and chunks at the wrong offset are rejected
+            mockMvc.perform(post("/api/uploads/{uploadId}/complete", uploadId)
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isConflict());
+            performChunk(uploadId, 0, Arrays.copyOfRange(imageData, split, imageData.length))
+                    .andExpect(status().isConflict());
+
+            // when - send the rest and complete
+            performChunk(uploadId, split, Arrays.copyOfRange(imageData, split, imageData.length))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.receivedBytes").value(imageData.length));
+            Image image = extractImageFromResponse(mockMvc.perform(post("/api/uploads/{uploadId}/complete", uploadId)
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isCreated()));
+
+            // then - the image is stored like a single-shot upload and the session is gone
+            assertThat(image.getFileName()).isEqualTo(TEST_IMAGE_FILENAME);
+            assertThat(image.getTitle()).isEqualTo("Chunked");
+            assertThat(image.getMimeType()).isEqualTo(TEST_IMAGE_MIME_TYPE);
+            assertThat(image.getFileSize()).isEqualTo(imageData.length);
+            MvcResult file = mockMvc.perform(get("/api/images/{imageId}/file", image.getId()))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            assertThat(file.getResponse().getContentAsByteArray()).isEqualTo(imageData);
+            mockMvc.perform(get("/api/uploads/{uploadId}", uploadId)
+                            .header("Authorization", "Bearer " + authToken))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("should refuse to complete when the assembled file differs from the announced size")
+        void shouldRejectMismatchedPartFile() throws Exception {
+            // given - every byte received, then something left behind past the end of the part file
+            byte[] imageData = loadRealJpegImage();
+            MvcResult created = mockMvc.perform(post("/api/uploads")
+                            .contentType("application/json")
+                            .content(String.format("{\"fileName\":\"%s\",\"fileSize\":%d}", TEST_IMAGE_FILENAME, imageData.length))
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isCreated())
+                    .andReturn();
+            String uploadId = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asText();
+            performChunk(uploadId, 0, imageData)
+                    .andExpect(status().isOk());
+            Files.write(uploadDirectory.resolve(uploadId + ".part"), new byte[] {0}, StandardOpenOption.APPEND);
+
+            // when / then
+            mockMvc.perform(post("/api/uploads/{uploadId}/complete", uploadId)
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isConflict());
+            mockMvc.perform(get("/api/uploads/{uploadId}", uploadId)
+                            .header("Authorization", "Bearer " + authToken))
+                    .andExpect(status().isOk());
+        }
+
+        @Test
+        @DisplayName("should discard the session when the assembled file is not an image")
+        void shouldDiscardSessionWithInvalidContent() throws Exception {
+            // given
+            byte[] content = "not an image at all".getBytes();
+            MvcResult created = mockMvc.perform(post("/api/uploads")
+                            .contentType("application/json")
+                            .content(String.format("{\"fileName\":\"notes.jpg\",\"fileSize\":%d}", content.length))
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isCreated())
+                    .andReturn();
+            String uploadId = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asText();
+            performChunk(uploadId, 0, content)
+                    .andExpect(status().isOk());
+            Integer blobsBefore = jdbcTemplate.queryForObject("SELECT count(*) FROM blobs", Integer.class);
+
+            // when
+            mockMvc.perform(post("/api/uploads/{uploadId}/complete", uploadId)
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isBadRequest());
+
+            // then - nothing was stored and the session cannot be retried
+            assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM blobs", Integer.class)).isEqualTo(blobsBefore);
+            mockMvc.perform(get("/api/uploads/{uploadId}", uploadId)
+                            .header("Authorization", "Bearer " + authToken))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("should limit sessions to a heap-safe size when blobs are stored in the database")
+        void shouldLimitSessionSizeForDatabaseBackend() throws Exception {
+            // when / then - within the filesystem limit, but above the database one
+            mockMvc.perform(post("/api/uploads")
+                            .contentType("application/json")
+                            .content("{\"fileName\":\"large.jpg\",\"fileSize\":52428800}")
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isPayloadTooLarge());
+        }
+
+        @Test
+        @DisplayName("should reject chunks beyond the announced file size")
+        void shouldRejectChunkBeyondFileSize() throws Exception {
+            // given
+            MvcResult created = mockMvc.perform(post("/api/uploads")
+                            .contentType("application/json")
+                            .content("{\"fileName\":\"small.jpg\",\"fileSize\":4}")
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isCreated())
+                    .andReturn();
+            String uploadId = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asText();
+
+            // when / then
+            performChunk(uploadId, 0, new byte[8])
+                    .andExpect(status().isPayloadTooLarge());
+        }
     }
 
     @Nested
@@ -212,6 +619,173 @@ class ImageIntegrationTest extends BaseIntegrationTest {
             assertThat(retrievedImageData).isEqualTo(originalImageData);
         }
 
+        @Test
+        @DisplayName("should serve repeated downloads from the in-memory content cache")
+        void shouldServeRepeatedDownloadsFromCache() throws Exception {
+            // given - content no other test has cached yet
+            BufferedImage pixels = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+            pixels.setRGB(0, 0, UUID.randomUUID().hashCode());
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(pixels, "png", png);
+            byte[] imageData = png.toByteArray();
+            UUID imageId = uploadTestImage("cached.png", "Cached", imageData);
+            double hitsBefore = cacheHits();
+
+            // when
+            for (int i = 0; i < 3; i++) {
+                MvcResult result = mockMvc.perform(get("/api/images/{imageId}/file", imageId))
+                        .andExpect(status().isOk())
+                        .andReturn();
+                assertThat(result.getResponse().getContentAsByteArray()).isEqualTo(imageData);
+            }
+
+            // then - the first download loads the content, the others hit
+            assertThat(cacheHits() - hitsBefore).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("should answer conditional requests with 304 using the content hash ETag")
+        void shouldReturnNotModifiedForMatchingETag() throws Exception {
+            // given
+            UUID imageId = uploadTestImage(TEST_IMAGE_FILENAME, TEST_IMAGE_TITLE);
+            MvcResult first = mockMvc.perform(get("/api/images/{imageId}/file", imageId))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists("ETag"))
+                    .andExpect(header().exists("Last-Modified"))
+                    .andReturn();
+            String etag = first.getResponse().getHeader("ETag");
+
+            // when / then
+            MvcResult revalidated = mockMvc.perform(get("/api/images/{imageId}/file", imageId)
+                            .header("If-None-Match", etag))
+                    .andExpect(status().isNotModified())
+                    .andReturn();
+            assertThat(revalidated.getResponse().getContentAsByteArray()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should answer a revalidation without loading the content into the cache")
+        void shouldRevalidateWithoutReadingContent() throws Exception {
+            // given - content no other test has cached yet
+            BufferedImage pixels = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+            pixels.setRGB(0, 0, UUID.randomUUID().hashCode());
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(pixels, "png", png);
+            UUID imageId = uploadTestImage("cold.png", "Cold", png.toByteArray());
+            String contentHash = jdbcTemplate.queryForObject(
+                    "SELECT content_hash FROM images WHERE id = ?", String.class, imageId);
+            double missesBefore = cacheMisses();
+
+            // when
+            mockMvc.perform(get("/api/images/{imageId}/file", imageId)
+                            .header("If-None-Match", "\"" + contentHash + "\""))
+                    .andExpect(status().isNotModified());
+
+            // then - the cold content was neither looked up nor read
+            assertThat(cacheMisses()).isEqualTo(missesBefore);
+        }
+
+        @Test
+        @DisplayName("should revalidate image metadata until the image is deleted")
+        void shouldRevalidateMetadataUntilDeleted() throws Exception {
+            // given
+            UUID imageId = uploadTestImage(TEST_IMAGE_FILENAME, TEST_IMAGE_TITLE);
+            MvcResult first = mockMvc.perform(get("/api/images/{imageId}", imageId))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", startsWith("W/")))
+                    .andExpect(header().exists("Last-Modified"))
+                    .andExpect(header().string("Cache-Control", "no-cache"))
+                    .andReturn();
+            String etag = first.getResponse().getHeader("ETag");
+
+            // when / then - unchanged image, even after other uploads
+            uploadTestImage("other.jpg", "Other");
+            mockMvc.perform(get("/api/images/{imageId}", imageId).header("If-None-Match", etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", etag));
+
+            // when / then - validators of one image don't make up an answer for ids that don't exist
+            mockMvc.perform(get("/api/images/{imageId}", UUID.randomUUID())
+                            .header("If-None-Match", etag)
+                            .header("If-Modified-Since", first.getResponse().getHeader("Last-Modified")))
+                    .andExpect(status().isNotFound());
+
+            // when / then - the delete changes the validators
+            mockMvc.perform(delete("/api/images/{imageId}", imageId)
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isNoContent());
+            mockMvc.perform(get("/api/images/{imageId}", imageId).header("If-None-Match", etag))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("should serve byte ranges with 206 Partial Content")
+        void shouldServeByteRange() throws Exception {
+            // given
+            byte[] originalImageData = loadRealJpegImage();
+            UUID imageId = uploadTestImage(TEST_IMAGE_FILENAME, TEST_IMAGE_TITLE, originalImageData);
+
+            // when
+            MvcResult result = mockMvc.perform(get("/api/images/{imageId}/file", imageId)
+                            .header("Range", "bytes=100-199"))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(header().string("Content-Range", "bytes 100-199/" + originalImageData.length))
+                    .andReturn();
+
+            // then
+            byte[] expected = Arrays.copyOfRange(originalImageData, 100, 200);
+            assertThat(result.getResponse().getContentAsByteArray()).isEqualTo(expected);
+        }
+
+        @Test
+        @DisplayName("should serve the original as thumbnail until a downscaled JPEG is generated")
+        void shouldServeGeneratedThumbnail() throws Exception {
+            // given
+            byte[] originalImageData = loadRealJpegImage();
+            UUID imageId = uploadTestImage(TEST_IMAGE_FILENAME, TEST_IMAGE_TITLE, originalImageData);
+
+            // when - generation runs in the background after the upload committed
+            MvcResult result = null;
+            for (int attempt = 0; attempt < 100; attempt++) {
+                result = mockMvc.perform(get("/api/images/{imageId}/thumbnail", imageId).param("size", "200"))
+                        .andExpect(status().isOk())
+                        .andReturn();
+                if (!"no-cache".equals(result.getResponse().getHeader("Cache-Control"))) {
+                    break;
+                }
+                assertThat(result.getResponse().getContentAsByteArray()).isEqualTo(originalImageData);
+                Thread.sleep(100);
+            }
+
+            // then
+            assertThat(result.getResponse().getHeader("Cache-Control")).contains("immutable");
+            assertThat(result.getResponse().getContentType()).isEqualTo("image/jpeg");
+            BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+            assertThat(Math.max(thumbnail.getWidth(), thumbnail.getHeight())).isEqualTo(200);
+            assertThat(result.getResponse().getContentAsByteArray().length).isLessThan(originalImageData.length);
+        }
+
+        @Test
+        @DisplayName("should give up on thumbnails of content that can't be decoded")
+        void shouldFailThumbnailsOfUndecodableContent() throws Exception {
+            // given - WebP is accepted, but the JDK has no decoder for it
+            MockMultipartFile file = new MockMultipartFile("file", "lossless.webp", "image/webp", createWebpHeader(300, 200));
+            Image image = extractImageFromResponse(performImageUpload(file, TEST_IMAGE_TITLE, TEST_IMAGE_DESCRIPTION));
+
+            // when - generation runs in the background after the upload committed
+            String sql = "SELECT count(*) FROM thumbnails WHERE status = 'FAILED'";
+            for (int attempt = 0; attempt < 100 && jdbcTemplate.queryForObject(sql, Integer.class) < 3; attempt++) {
+                Thread.sleep(100);
+            }
+
+            // then - every size failed for good and the original keeps being served in its place
+            assertThat(jdbcTemplate.queryForObject(sql, Integer.class)).isEqualTo(3);
+            mockMvc.perform(get("/api/images/{imageId}/thumbnail", image.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Content-Type", "image/webp"));
+        }
+
         @Test
         @DisplayName("should return error for non-existent image")
         void shouldReturnNotFoundForNonExistentImage() throws Exception {
@@ -267,6 +841,53 @@ class ImageIntegrationTest extends BaseIntegrationTest {
             assertThat(listResponse.getTotal()).isEqualTo(1);
         }
 
+        @Test
+        @DisplayName("should serve the first page pre-rendered until the gallery changes")
+        void shouldServeCachedFirstPageUntilUpload() throws Exception {
+            // given
+            UUID firstId = uploadTestImage("first.jpg", "First");
+            MvcResult first = mockMvc.perform(get("/api/images"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists("ETag"))
+                    .andExpect(jsonPath("$.images[0].id").value(firstId.toString()))
+                    .andReturn();
+            String etag = first.getResponse().getHeader("ETag");
+
+            // when / then - unchanged gallery
+            mockMvc.perform(get("/api/images").header("If-None-Match", etag))
+                    .andExpect(status().isNotModified());
+
+            // when / then - an upload invalidates the rendered page
+            UUID secondId = uploadTestImage("second.jpg", "Second");
+            mockMvc.perform(get("/api/images").header("If-None-Match", etag))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.images[0].id").value(secondId.toString()))
+                    .andExpect(jsonPath("$.images[1].id").value(firstId.toString()));
+        }
+
+        @Test
+        @DisplayName("should publish listing metrics on the Prometheus endpoint")
+        void shouldPublishListingMetrics() throws Exception {
+            // given
+            mockMvc.perform(get("/api/images"))
+                    .andExpect(status().isOk());
+
+            // when
+            HttpResponse<String> scrape = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + managementPort + "/actuator/prometheus")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            // then - only served on the management port
+            assertThat(scrape.statusCode()).isEqualTo(200);
+            mockMvc.perform(get("/actuator/prometheus"))
+                    .andExpect(status().is4xxClientError());
+
+            // then - service timer and per-request metrics, tagged by URI template
+            assertThat(scrape.body()).contains("muralia_images_list_seconds_count");
+            assertThat(scrape.body()).contains("muralia_http_server_statements_count{application=\"muralia\",method=\"GET\",uri=\"/api/images\"");
+            assertThat(scrape.body()).contains("muralia_http_server_bytes_sent_bytes_count{application=\"muralia\",method=\"GET\",uri=\"/api/images\"");
+        }
+
         @Test
         @DisplayName("should return images in reverse chronological order")
         void shouldReturnImagesInReverseChronologicalOrder() throws Exception {
@@ -325,6 +946,179 @@ class ImageIntegrationTest extends BaseIntegrationTest {
                     .andExpect(jsonPath("$.total").value(5))
                     .andExpect(jsonPath("$.offset").value(4));
         }
+
+        @Test
+        @DisplayName("should paginate with keyset cursor without counting")
+        void shouldPaginateWithCursor() throws Exception {
+            // given
+            uploadMultipleTestImages(5);
+
+            // when - first page returns a cursor
+            MvcResult firstPage = mockMvc.perform(get("/api/images")
+                            .param("limit", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.images.length()").value(2))
+                    .andExpect(jsonPath("$.images[0].title").value("Test Image 5"))
+                    .andExpect(jsonPath("$.nextCursor").exists())
+                    .andReturn();
+            String cursor = objectMapper.readValue(firstPage.getResponse().getContentAsString(),
+                    ImageListResponse.class).getNextCursor();
+
+            // when - second page follows the cursor
+            MvcResult secondPage = mockMvc.perform(get("/api/images")
+                            .param("limit", "2")
+                            .param("cursor", cursor))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.images.length()").value(2))
+                    .andExpect(jsonPath("$.images[0].title").value("Test Image 3"))
+                    .andExpect(jsonPath("$.total").doesNotExist())
+                    .andReturn();
+            cursor = objectMapper.readValue(secondPage.getResponse().getContentAsString(),
+                    ImageListResponse.class).getNextCursor();
+
+            // then - last page has no further cursor
+            mockMvc.perform(get("/api/images")
+                            .param("limit", "2")
+                            .param("cursor", cursor))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.images.length()").value(1))
+                    .andExpect(jsonPath("$.images[0].title").value("Test Image 1"))
+                    .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        }
+
+        @Test
+        @DisplayName("should reject a malformed cursor")
+        void shouldRejectMalformedCursor() throws Exception {
+            mockMvc.perform(get("/api/images")
+                            .param("cursor", "not-a-cursor"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.status").value(400));
+        }
+    }
+
+    @Nested
+    @DisplayName("Customer Images")
+    class CustomerImagesTests {
+
+        @Test
+        @DisplayName("should page through one customer's images with a cursor")
+        void shouldPageCustomerImagesWithCursor() throws Exception {
+            // given - three images of the test customer and one of somebody else
+            UUID oldestId = uploadTestImage("one.jpg", "One");
+            UUID middleId = uploadTestImage("two.jpg", "Two");
+            UUID newestId = uploadTestImage("three.jpg", "Three");
+            createTestCustomer("otheruser", "other@example.com");
+            String ownToken = authToken;
+            authToken = obtainAuthToken("other@example.com", TEST_PASSWORD);
+            UUID otherId = uploadTestImage("other.jpg", "Other");
+            authToken = ownToken;
+
+            // when
+            MvcResult firstPage = mockMvc.perform(get("/api/customers/{customerId}/images", testCustomer.getId())
+                            .param("limit", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.images.length()").value(2))
+                    .andExpect(jsonPath("$.images[0].id").value(newestId.toString()))
+                    .andExpect(jsonPath("$.images[1].id").value(middleId.toString()))
+                    .andExpect(jsonPath("$.total").doesNotExist())
+                    .andExpect(jsonPath("$.nextCursor").exists())
+                    .andReturn();
+            String cursor = objectMapper.readTree(firstPage.getResponse().getContentAsString()).get("nextCursor").asText();
+
+            // then
+            MvcResult secondPage = mockMvc.perform(get("/api/customers/{customerId}/images", testCustomer.getId())
+                            .param("limit", "2")
+                            .param("cursor", cursor))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.images.length()").value(1))
+                    .andExpect(jsonPath("$.images[0].id").value(oldestId.toString()))
+                    .andExpect(jsonPath("$.nextCursor").doesNotExist())
+                    .andReturn();
+            assertThat(firstPage.getResponse().getContentAsString() + secondPage.getResponse().getContentAsString())
+                    .doesNotContain(otherId.toString());
+        }
+
+        @Test
+        @DisplayName("should tell a customer without images from a missing customer")
+        void shouldReturnNotFoundForMissingCustomer() throws Exception {
+            // when / then
+            mockMvc.perform(get("/api/customers/{customerId}/images", testCustomer.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.images.length()").value(0));
+
+            mockMvc.perform(get("/api/customers/{customerId}/images", testCustomer.getId() + 1000))
+                    .andExpect(status().isNotFound())
+                    .andExpect(jsonPath("$.status").value(404));
+        }
+
+        @Test
+        @DisplayName("should index images by customer in gallery order")
+        void shouldIndexImagesByCustomer() {
+            // when
+            String definition = jdbcTemplate.queryForObject(
+                    "SELECT indexdef FROM pg_indexes WHERE indexname = 'idx_images_customer_uploaded_at_id'",
+                    String.class);
+
+            // then
+            assertThat(definition).contains("(customer_id, uploaded_at DESC, id DESC)");
+        }
+    }
+
+    @Nested
+    @DisplayName("Image Event Stream")
+    class ImageEventStreamTests {
+
+        @Test
+        @DisplayName("should push uploads and deletes to open streams")
+        void shouldPushUploadsAndDeletes() throws Exception {
+            // given
+            MvcResult stream = mockMvc.perform(get("/api/images/stream"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // when
+            UUID imageId = uploadTestImage(TEST_IMAGE_FILENAME, TEST_IMAGE_TITLE);
+            mockMvc.perform(delete("/api/images/{imageId}", imageId)
+                            .header("Authorization", "Bearer " + authToken)
+                            .with(csrf()))
+                    .andExpect(status().isNoContent());
+
+            // then
+            String events = awaitStreamContent(stream, "event:deleted");
+            assertThat(events).contains("event:uploaded\ndata:{\"imageId\":\"" + imageId + "\"}");
+            assertThat(events).contains("event:deleted\ndata:{\"imageId\":\"" + imageId + "\"}");
+            assertThat(events.indexOf("event:uploaded")).isLessThan(events.indexOf("event:deleted"));
+        }
+
+        @Test
+        @DisplayName("should replay missed events after Last-Event-ID and resync unknown ids")
+        void shouldResumeFromLastEventId() throws Exception {
+            // given - a stream that saw the first upload
+            MvcResult stream = mockMvc.perform(get("/api/images/stream"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            UUID firstId = uploadTestImage("first.jpg", "First");
+            String seen = awaitStreamContent(stream, firstId.toString());
+            String lastEventId = seen.lines()
+                    .filter(line -> line.startsWith("id:"))
+                    .reduce((first, second) -> second)
+                    .orElseThrow()
+                    .substring("id:".length());
+
+            // when - the client reconnects after missing the second upload
+            UUID secondId = uploadTestImage("second.jpg", "Second");
+            MvcResult resumed = mockMvc.perform(get("/api/images/stream").header("Last-Event-ID", lastEventId))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            MvcResult unknown = mockMvc.perform(get("/api/images/stream").header("Last-Event-ID", "elsewhere-42"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // then
+            String replayed = awaitStreamContent(resumed, secondId.toString());
+            assertThat(replayed).doesNotContain(firstId.toString());
+            assertThat(awaitStreamContent(unknown, "event:resync")).doesNotContain(secondId.toString());
+        }
     }
 
     @Nested
@@ -479,6 +1273,22 @@ class ImageIntegrationTest extends BaseIntegrationTest {
         return authResponse.getToken();
     }
 
+    private double cacheHits() {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", "image-files")
+                .tag("result", "hit")
+                .functionCounter()
+                .count();
+    }
+
+    private double cacheMisses() {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", "image-files")
+                .tag("result", "miss")
+                .functionCounter()
+                .count();
+    }
+
     private MockMultipartFile createImageFile(String filename, byte[] imageData) {
         return new MockMultipartFile("file", filename, TEST_IMAGE_MIME_TYPE, imageData);
     }
@@ -496,6 +1306,15 @@ class ImageIntegrationTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$.url").exists());
     }
 
+    private ResultActions performChunk(String uploadId, long offset, byte[] chunk) throws Exception {
+        return mockMvc.perform(put("/api/uploads/{uploadId}/chunks", uploadId)
+                .param("offset", String.valueOf(offset))
+                .contentType("application/octet-stream")
+                .content(chunk)
+                .header("Authorization", "Bearer " + authToken)
+                .with(csrf()));
+    }
+
     private Image extractImageFromResponse(ResultActions resultActions) throws Exception {
         MvcResult result = resultActions.andReturn();
         String responseJson = result.getResponse().getContentAsString();
@@ -518,6 +1337,19 @@ class ImageIntegrationTest extends BaseIntegrationTest {
         assertThat(image.getUrl().toString()).contains(expectedUrl);
     }
 
+    /**
+     * Stream events are written by a background sender, wait until the expected text shows up.
+     */
+    private String awaitStreamContent(MvcResult stream, String expected) throws Exception {
+        String content = "";
+        for (int attempt = 0; attempt < 50 && !content.contains(expected); attempt++) {
+            Thread.sleep(100);
+            content = stream.getResponse().getContentAsString();
+        }
+        assertThat(content).contains(expected);
+        return content;
+    }
+
     private UUID uploadTestImage(String filename, String title) throws Exception {
         byte[] imageData = loadRealJpegImage();
         return uploadTestImage(filename, title, imageData);
@@ -539,6 +1371,40 @@ class ImageIntegrationTest extends BaseIntegrationTest {
         }
     }
 
+    /**
+     * Builds the RIFF header of a lossless (VP8L) WebP image, enough for sniffing and header reading.
+     */
+    private byte[] createWebpHeader(int width, int height) {
+        ByteBuffer webp = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+        webp.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(32)
+                .put("WEBP".getBytes(StandardCharsets.US_ASCII))
+                .put("VP8L".getBytes(StandardCharsets.US_ASCII)).putInt(20)
+                .put((byte) 0x2F)
+                .putInt((width - 1) | ((height - 1) << 14));
+        return webp.array();
+    }
+
+    /**
+     * Inserts an Exif segment carrying the given orientation after the JFIF segment of a JPEG.
+     */
+    private byte[] withExifOrientation(byte[] jpeg, int orientation) {
+        ByteBuffer exif = ByteBuffer.allocate(36);
+        exif.putShort((short) 0xFFE1).putShort((short) 34)
+                .put("Exif\0\0".getBytes(StandardCharsets.US_ASCII))
+                // Big-endian TIFF header, then one IFD with a single SHORT entry
+                .put("MM".getBytes(StandardCharsets.US_ASCII)).putShort((short) 42).putInt(8)
+                .putShort((short) 1)
+                .putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0)
+                .putInt(0);
+
+        int insertAt = 4 + (((jpeg[4] & 0xFF) << 8) | (jpeg[5] & 0xFF));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, insertAt);
+        out.write(exif.array(), 0, exif.capacity());
+        out.write(jpeg, insertAt, jpeg.length - insertAt);
+        return out.toByteArray();
+    }
+
     /**
      * Loads a real JPEG image from test resources.
      * Uses the sample-001.jpg file (884KB) provided by the user.
@@ -0,0 +1,305 @@
+package com.muralia;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.muralia.entity.CustomerEntity;
+import com.muralia.repository.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Compares platform and virtual request threads under many slow downloads.
+ *
+ * Hundreds of clients request the same large image and stall before reading it, then drain it at a
+ * throttled rate. Meanwhile a burst of metadata requests probes whether the server still answers
+ * anyone else. Blobs come from the filesystem store so the download path holds no pooled connection
+ * and the request threads are the only limit. Run with {@code ./gradlew benchmark}; each mode writes
+ * its numbers to {@code build/reports/benchmarks/slow-clients-<mode>.json}.
+ */
+@Tag("benchmark")
+abstract class SlowClientBenchmark extends BaseIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowClientBenchmark.class);
+
+    private static final int SLOW_CLIENTS = 400;
+    private static final int PROBES = 50;
+    private static final int IMAGE_EDGE = 800;
+    private static final Duration STALL = Duration.ofSeconds(2);
+    private static final Duration PROBE_TIMEOUT = Duration.ofSeconds(5);
+    private static final int READ_CHUNK = 16 * 1024;
+    private static final long BYTES_PER_SECOND = 1024 * 1024;
+    private static final String TEST_PASSWORD = "Test123!";
+
+    @TempDir
+    static Path storageRoot;
+
+    @DynamicPropertySource
+    static void benchmarkProperties(DynamicPropertyRegistry registry) {
+        registry.add("muralia.storage.backend", () -> "filesystem");
+        registry.add("muralia.storage.filesystem.root", () -> storageRoot.toString());
+        // The fixed pool the platform mode is limited to; virtual threads ignore it
+        registry.add("server.tomcat.threads.max", () -> "50");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("logging.level.org.hibernate.SQL", () -> "INFO");
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID imageId;
+    private long imageSize;
+
+    protected abstract String mode();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        customerRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM thumbnails");
+        jdbcTemplate.update("DELETE FROM blobs");
+        jdbcTemplate.update("DELETE FROM image_blobs");
+        customerRepository.save(CustomerEntity.builder()
+                .email("bench@example.com")
+                .username("benchuser")
+                .password(passwordEncoder.encode(TEST_PASSWORD))
+                .build());
+
+        MvcResult login = mockMvc.perform(post("/api/auth/login")
+                        .contentType("application/json")
+                        .content("{\"email\":\"bench@example.com\",\"password\":\"" + TEST_PASSWORD + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String token = objectMapper.readTree(login.getResponse().getContentAsString()).get("token").asText();
+
+        byte[] image = noisePng();
+        MvcResult upload = mockMvc.perform(multipart("/api/images")
+                        .file(new MockMultipartFile("file", "noise.png", "image/png", image))
+                        .param("title", "Benchmark")
+                        .header("Authorization", "Bearer " + token)
+                        .with(csrf()))
+                .andExpect(status().isCreated())
+                .andReturn();
+        imageId = UUID.fromString(objectMapper.readTree(upload.getResponse().getContentAsString()).get("id").asText());
+        imageSize = image.length;
+    }
+
+    @Test
+    @DisplayName("should keep answering while slow clients download")
+    void benchmarkSlowClients() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Socket> sockets = new ArrayList<>();
+            for (int i = 0; i < SLOW_CLIENTS; i++) {
+                sockets.add(requestDownload());
+            }
+            Thread.sleep(STALL.toMillis());
+
+            // Probe while every slow client is stalled
+            List<Long> probeLatencies = probe();
+
+            long started = System.nanoTime();
+            List<Future<Long>> downloads = new ArrayList<>();
+            for (Socket socket : sockets) {
+                downloads.add(clients.submit(() -> drain(socket, started)));
+            }
+            List<Long> downloadLatencies = new ArrayList<>();
+            for (Future<Long> download : downloads) {
+                downloadLatencies.add(download.get());
+            }
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("mode", mode());
+            report.put("slowClients", SLOW_CLIENTS);
+            report.put("imageBytes", imageSize);
+            report.put("clientBytesPerSecond", BYTES_PER_SECOND);
+            report.put("probes", PROBES);
+            report.put("probesAnswered", probeLatencies.size());
+            report.put("probeP50Millis", percentile(probeLatencies, 50));
+            report.put("probeP99Millis", percentile(probeLatencies, 99));
+            report.put("downloadP50Millis", percentile(downloadLatencies, 50));
+            report.put("downloadP99Millis", percentile(downloadLatencies, 99));
+            report.put("drainMillis", elapsedMillis);
+            report.put("peakPlatformThreads", threads.getPeakThreadCount());
+            writeReport(report);
+
+            assertThat(downloadLatencies).hasSize(SLOW_CLIENTS);
+        }
+    }
+
+    private Socket requestDownload() throws IOException {
+        Socket socket = new Socket();
+        // A small window makes the server block on writes instead of buffering the whole image
+        socket.setReceiveBufferSize(8 * 1024);
+        socket.connect(new InetSocketAddress("localhost", port));
+        socket.getOutputStream().write(("GET /api/images/" + imageId + "/file HTTP/1.1\r\n"
+                + "Host: localhost\r\n"
+                + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        socket.getOutputStream().flush();
+        return socket;
+    }
+
+    /**
+     * Reads the whole response at the client rate and returns the time from {@code started} until done.
+     */
+    private long drain(Socket socket, long started) throws IOException, InterruptedException {
+        long received = 0;
+        try (socket; InputStream in = socket.getInputStream()) {
+            byte[] buffer = new byte[READ_CHUNK];
+            long pauseMillis = READ_CHUNK * 1000L / BYTES_PER_SECOND;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                received += read;
+                Thread.sleep(pauseMillis);
+            }
+        }
+        assertThat(received).isGreaterThan(imageSize);
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+
+    /**
+     * Fires the probe burst at once and returns the latencies of the probes answered within the timeout.
+     */
+    private List<Long> probe() {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(PROBE_TIMEOUT).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/images/" + imageId))
+                .timeout(PROBE_TIMEOUT)
+                .build();
+
+        List<CompletableFuture<Long>> probes = new ArrayList<>();
+        for (int i = 0; i < PROBES; i++) {
+            long sent = System.nanoTime();
+            probes.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenApply(response -> (System.nanoTime() - sent) / 1_000_000)
+                    .exceptionally(timeout -> null));
+        }
+
+        List<Long> answered = new ArrayList<>();
+        for (CompletableFuture<Long> probe : probes) {
+            Long latency = probe.join();
+            if (latency != null) {
+                answered.add(latency);
+            }
+        }
+        return answered;
+    }
+
+    private void writeReport(Map<String, Object> report) throws IOException {
+        String json = objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report);
+        log.info("Slow client benchmark ({}): {}", mode(), json);
+
+        Path directory = Path.of(System.getProperty("muralia.benchmark.reports", "build/reports/benchmarks"));
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve("slow-clients-" + mode() + ".json"), json);
+    }
+
+    private static Long percentile(List<Long> values, int percentile) {
+        if (values.isEmpty()) {
+            return null;
+        }
+        List<Long> sorted = values.stream().sorted().toList();
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(index, 0));
+    }
+
+    /**
+     * Random pixels do not compress, so the PNG is about three bytes per pixel.
+     */
+    private static byte[] noisePng() throws IOException {
+        BufferedImage image = new BufferedImage(IMAGE_EDGE, IMAGE_EDGE, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < IMAGE_EDGE; y++) {
+            for (int x = 0; x < IMAGE_EDGE; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        return png.toByteArray();
+    }
+
+    @DisplayName("Slow clients on a fixed pool of platform threads")
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+    static class PlatformThreads extends SlowClientBenchmark {
+
+        @Override
+        protected String mode() {
+            return "platform";
+        }
+    }
+
+    @DisplayName("Slow clients on virtual threads")
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+    static class VirtualThreads extends SlowClientBenchmark {
+
+        @Override
+        protected String mode() {
+            return "virtual";
+        }
+    }
+}
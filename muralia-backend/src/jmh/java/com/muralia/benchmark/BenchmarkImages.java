@@ -0,0 +1,80 @@
+package com.muralia.benchmark;
+
+import com.muralia.entity.CustomerEntity;
+import com.muralia.entity.ImageEntity;
+import com.muralia.repository.projection.ImageMetadata;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Fixtures shared by the benchmarks: realistic image rows and encoded pictures.
+ */
+final class BenchmarkImages {
+
+    private static final String BASE_URL = "http://localhost:8080/api/images/";
+
+    private BenchmarkImages() {
+    }
+
+    static ImageEntity entity(UUID id, CustomerEntity customer) {
+        return ImageEntity.builder()
+                .id(id)
+                .url(BASE_URL + id + "/file")
+                .thumbnailUrl(BASE_URL + id + "/thumbnail")
+                .title("Mural on the harbour wall")
+                .description("Large-scale mural painted over three weekends by the neighbourhood collective")
+                .fileName("harbour-wall.jpg")
+                .fileSize(2_457_600L)
+                .mimeType("image/jpeg")
+                .contentHash("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+                .width(4032)
+                .height(3024)
+                .customer(customer)
+                .uploadedAt(OffsetDateTime.now())
+                .build();
+    }
+
+    static ImageMetadata metadata(UUID id, OffsetDateTime uploadedAt) {
+        return new ImageMetadata(
+                id,
+                BASE_URL + id + "/file",
+                BASE_URL + id + "/thumbnail",
+                "Mural on the harbour wall",
+                "Large-scale mural painted over three weekends by the neighbourhood collective",
+                "harbour-wall.jpg",
+                2_457_600L,
+                "image/jpeg",
+                4032,
+                3024,
+                7L,
+                "muralist",
+                uploadedAt);
+    }
+
+    /**
+     * A gradient with some shapes, so the encoders have real work without it being noise.
+     */
+    static byte[] encoded(String format, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, width, height, Color.BLUE));
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(Color.WHITE);
+        for (int i = 0; i < 20; i++) {
+            graphics.fillOval(i * width / 20, (i * 37 % 20) * height / 20, width / 15, height / 15);
+        }
+        graphics.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,50 @@
+package com.muralia.benchmark;
+
+import com.muralia.service.image.ImageDimensions;
+import com.muralia.service.image.ImageHeaderReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Header-only dimension parsing. The cost should not depend on the pixel count.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageHeaderReaderBenchmark {
+
+    @Param({"jpeg", "png"})
+    public String format;
+
+    @Param({"640", "4000"})
+    public int edge;
+
+    private final ImageHeaderReader imageHeaderReader = new ImageHeaderReader();
+    private ByteArrayResource image;
+
+    @Setup
+    public void setUp() throws Exception {
+        image = new ByteArrayResource(BenchmarkImages.encoded(format, edge, edge * 3 / 4));
+    }
+
+    @Benchmark
+    public Optional<ImageDimensions> read() throws Exception {
+        return imageHeaderReader.read(image);
+    }
+}
@@ -0,0 +1,65 @@
+package com.muralia.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muralia.api.model.Image;
+import com.muralia.api.model.ImageListResponse;
+import com.muralia.service.mapper.ImageMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of a gallery page, with an object mapper configured like Spring's.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageListSerializationBenchmark {
+
+    @Param({"12", "50", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private ImageListResponse page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        ImageMapper imageMapper = new ImageMapper();
+        OffsetDateTime uploadedAt = OffsetDateTime.now();
+        List<Image> images = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            images.add(imageMapper.toDto(BenchmarkImages.metadata(UUID.randomUUID(), uploadedAt.minusMinutes(i))));
+        }
+
+        page = new ImageListResponse();
+        page.setImages(images);
+        page.setTotal(1000);
+        page.setLimit(pageSize);
+        page.setOffset(0);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,53 @@
+package com.muralia.benchmark;
+
+import com.muralia.api.model.Image;
+import com.muralia.entity.CustomerEntity;
+import com.muralia.entity.ImageEntity;
+import com.muralia.repository.projection.ImageMetadata;
+import com.muralia.service.mapper.ImageMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ImageMapper#toDto} from an entity, as after an upload, and from the listing projection.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageMapperBenchmark {
+
+    private final ImageMapper imageMapper = new ImageMapper();
+    private ImageEntity entity;
+    private ImageMetadata metadata;
+
+    @Setup
+    public void setUp() {
+        entity = BenchmarkImages.entity(UUID.randomUUID(), CustomerEntity.builder().id(7L).username("muralist").build());
+        metadata = BenchmarkImages.metadata(UUID.randomUUID(), OffsetDateTime.now());
+    }
+
+    @Benchmark
+    public Image fromEntity() {
+        return imageMapper.toDto(entity);
+    }
+
+    @Benchmark
+    public Image fromMetadata() {
+        return imageMapper.toDto(metadata);
+    }
+}
@@ -0,0 +1,83 @@
+package com.muralia.benchmark;
+
+import com.muralia.entity.CustomerEntity;
+import com.muralia.service.impl.JwtServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuing, and verification with and without a hit in the verified-token cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-with-at-least-256-bits-of-entropy";
+    private static final long EXPIRATION = 3_600_000L;
+    private static final int DISTINCT_TOKENS = 4096;
+
+    private JwtServiceImpl cachingService;
+    private JwtServiceImpl nonCachingService;
+    private CustomerEntity customer;
+    private String token;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        cachingService = new JwtServiceImpl(new SimpleMeterRegistry(), SECRET, EXPIRATION, 10_000);
+        // Room for one entry while cycling through thousands of tokens: practically every call misses
+        nonCachingService = new JwtServiceImpl(new SimpleMeterRegistry(), SECRET, EXPIRATION, 1);
+
+        customer = CustomerEntity.builder()
+                .id(42L)
+                .email("benchmark@example.com")
+                .username("benchmark")
+                .build();
+        token = cachingService.generateToken(customer);
+        cachingService.verifyToken(token);
+
+        tokens = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            tokens[i] = cachingService.generateToken(CustomerEntity.builder()
+                    .id((long) i)
+                    .email("user" + i + "@example.com")
+                    .username("user" + i)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public String generate() {
+        return cachingService.generateToken(customer);
+    }
+
+    @Benchmark
+    public Optional<Claims> verifyCached() {
+        return cachingService.verifyToken(token);
+    }
+
+    @Benchmark
+    public Optional<Claims> verifyUncached() {
+        String candidate = tokens[next];
+        next = (next + 1) % DISTINCT_TOKENS;
+        return nonCachingService.verifyToken(candidate);
+    }
+}
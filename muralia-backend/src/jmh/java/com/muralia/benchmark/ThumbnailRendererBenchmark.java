@@ -0,0 +1,50 @@
+package com.muralia.benchmark;
+
+import com.muralia.service.image.ImageHeaderReader;
+import com.muralia.service.thumbnail.RenderedThumbnail;
+import com.muralia.service.thumbnail.ThumbnailRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering the configured thumbnail sizes (decode, scale, re-encode) from originals of several sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThumbnailRendererBenchmark {
+
+    private static final List<Integer> SIZES = List.of(200, 400, 800);
+
+    @Param({"1024", "2048", "4096"})
+    public int edge;
+
+    private final ThumbnailRenderer renderer = new ThumbnailRenderer(new ImageHeaderReader(), 0.8f);
+    private ByteArrayResource original;
+
+    @Setup
+    public void setUp() throws Exception {
+        original = new ByteArrayResource(BenchmarkImages.encoded("jpeg", edge, edge * 3 / 4));
+    }
+
+    @Benchmark
+    public List<RenderedThumbnail> render() throws Exception {
+        return renderer.render(original, SIZES);
+    }
+}
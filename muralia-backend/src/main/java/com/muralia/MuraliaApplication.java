@@ -2,8 +2,10 @@ package com.muralia;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class MuraliaApplication {
     public static void main(String[] args) {
         SpringApplication.run(MuraliaApplication.class, args);
@@ -0,0 +1,103 @@
+package com.muralia.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Resource converter that serves file-backed resources without copying them through the heap.
+ * When Tomcat offers sendfile, the file is handed to the connector and written by the kernel after the
+ * response is committed. Otherwise the file is pushed with {@link FileChannel#transferTo}.
+ * Non-file resources (e.g. database blobs) are written as usual. Bytes left to sendfile are reported by
+ * {@link #sendfileLength} so request metrics can include them.
+ *
+ * In the other direction, {@link Resource} request bodies are handed to the handler as a stream over the
+ * request instead of being read into a byte array first.
+ *
+ * Registered as a bean, Spring Boot puts it in place of the default {@link ResourceHttpMessageConverter}.
+ */
+@Component
+public class BlobResourceHttpMessageConverter extends ResourceHttpMessageConverter {
+
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    // Same threshold as Tomcat's DefaultServlet: below this a plain write is cheaper
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    @Override
+    protected Resource readInternal(Class<? extends Resource> clazz, HttpInputMessage inputMessage) throws IOException {
+        if (clazz == Resource.class) {
+            return new InputStreamResource(inputMessage.getBody());
+        }
+        return super.readInternal(clazz, inputMessage);
+    }
+
+    @Override
+    protected void writeContent(Resource resource, HttpOutputMessage outputMessage) throws IOException {
+        if (!resource.isFile()) {
+            super.writeContent(resource, outputMessage);
+            return;
+        }
+
+        Path path = resource.getFile().toPath();
+        long length = resource.contentLength();
+
+        HttpServletRequest request = currentRequest();
+        if (request != null && length >= SENDFILE_MIN_SIZE
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, 0L);
+            request.setAttribute(SENDFILE_END_ATTR, length);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(outputMessage.getBody());
+            long position = 0;
+            while (position < length) {
+                long transferred = channel.transferTo(position, length - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    /**
+     * Bytes handed to sendfile for this request, which never pass through the response stream.
+     */
+    static long sendfileLength(HttpServletRequest request) {
+        if (request.getAttribute(SENDFILE_FILENAME_ATTR) == null
+                || !(request.getAttribute(SENDFILE_START_ATTR) instanceof Long start)
+                || !(request.getAttribute(SENDFILE_END_ATTR) instanceof Long end)) {
+            return 0;
+        }
+        return end - start;
+    }
+
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            return servletAttributes.getRequest();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.muralia.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread, for the per-request statement
+ * metric. Leaves the SQL unchanged.
+ */
+public class HibernateStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Statements prepared on this thread so far; callers take the difference between two readings.
+     */
+    public static long current() {
+        return COUNT.get()[0];
+    }
+}
@@ -0,0 +1,24 @@
+package com.muralia.config;
+
+import com.muralia.entity.id.AssignedIdInterceptor;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hibernate settings that need objects rather than application.yml values.
+ */
+@Configuration
+public class JpaConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer assignedIdInterceptorCustomizer() {
+        return properties -> properties.put(AvailableSettings.INTERCEPTOR, new AssignedIdInterceptor());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new HibernateStatementCounter());
+    }
+}
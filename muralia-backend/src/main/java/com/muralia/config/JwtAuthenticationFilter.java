@@ -1,8 +1,8 @@
 package com.muralia.config;
 
-import com.muralia.entity.CustomerEntity;
-import com.muralia.repository.CustomerRepository;
+import com.muralia.service.CustomerPrincipalResolver;
 import com.muralia.service.JwtService;
+import com.muralia.service.auth.AuthenticatedCustomer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,16 +16,17 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final CustomerRepository customerRepository;
+    private final CustomerPrincipalResolver customerPrincipalResolver;
 
-    public JwtAuthenticationFilter(JwtService jwtService, CustomerRepository customerRepository) {
+    public JwtAuthenticationFilter(JwtService jwtService, CustomerPrincipalResolver customerPrincipalResolver) {
         this.jwtService = jwtService;
-        this.customerRepository = customerRepository;
+        this.customerPrincipalResolver = customerPrincipalResolver;
     }
 
     @Override
@@ -48,29 +49,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // Extract token (remove "Bearer " prefix)
             final String jwt = authHeader.substring(7);
 
-            // Extract email from token
-            final String userEmail = jwtService.extractUsername(jwt);
+            // Verify the token once and derive the principal from its claims
+            final Optional<AuthenticatedCustomer> principal = jwtService.verifyToken(jwt)
+                    .flatMap(customerPrincipalResolver::resolve);
 
-            // If email exists and user is not already authenticated
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                // Load user from database
-                CustomerEntity customer = customerRepository.findByEmail(userEmail)
-                        .orElse(null);
+            // If the token is valid and user is not already authenticated
+            if (principal.isPresent() && SecurityContextHolder.getContext().getAuthentication() == null) {
+                // Create authentication token
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        principal.get(),
+                        null,
+                        Collections.emptyList() // No roles/authorities for now
+                );
 
-                // Validate token
-                if (customer != null && jwtService.validateToken(jwt, customer)) {
-                    // Create authentication token
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            customer,
-                            null,
-                            Collections.emptyList() // No roles/authorities for now
-                    );
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                    // Set authentication in SecurityContext
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
+                // Set authentication in SecurityContext
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         } catch (Exception e) {
             // Log error but don't block the request
@@ -0,0 +1,33 @@
+package com.muralia.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Matches requests that arrived on the actuator's own port ({@code management.server.port}), so
+ * operational endpoints can be opened there without being reachable through the application port.
+ * Matches nothing when actuator shares the application port.
+ */
+@Component
+public class ManagementPort implements ApplicationListener<WebServerInitializedEvent>, RequestMatcher {
+
+    private static final String MANAGEMENT_NAMESPACE = "management";
+
+    private volatile int port = -1;
+
+    @Override
+    public void onApplicationEvent(WebServerInitializedEvent event) {
+        // Published by the management child context and propagated to this one
+        if (MANAGEMENT_NAMESPACE.equals(event.getApplicationContext().getServerNamespace())) {
+            port = event.getWebServer().getPort();
+        }
+    }
+
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        return port > 0 && request.getLocalPort() == port;
+    }
+}
@@ -0,0 +1,180 @@
+package com.muralia.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records per request, tagged like {@code http.server.requests} by method and URI template:
+ * bytes received (the declared request body length), bytes sent through the response stream or left
+ * to Tomcat's sendfile, and the number of SQL statements Hibernate prepared on the request thread.
+ *
+ * Unmatched requests share the {@code UNKNOWN} URI so the tag stays bounded by the routes.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+    private static final double KB = 1024;
+    private static final double MB = 1024 * KB;
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        long statementsBefore = HibernateStatementCounter.current();
+        CountingResponse countingResponse = new CountingResponse(response);
+        try {
+            filterChain.doFilter(request, countingResponse);
+        } finally {
+            long statements = HibernateStatementCounter.current() - statementsBefore;
+            if (request.isAsyncStarted()) {
+                // Streamed responses finish on another thread: only the bytes are known at completion
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, countingResponse.bytesSent(), statements);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record(request, countingResponse.bytesSent() + BlobResourceHttpMessageConverter.sendfileLength(request),
+                        statements);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, long bytesSent, long statements) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of("method", request.getMethod(), "uri", pattern != null ? pattern.toString() : UNKNOWN_URI);
+
+        DistributionSummary.builder("muralia.http.server.statements")
+                .description("SQL statements prepared by Hibernate per request")
+                .tags(tags)
+                .serviceLevelObjectives(0, 1, 2, 5, 10, 20, 50, 100)
+                .register(meterRegistry)
+                .record(statements);
+        DistributionSummary.builder("muralia.http.server.bytes.sent")
+                .description("Response body bytes per request")
+                .baseUnit("bytes")
+                .tags(tags)
+                .serviceLevelObjectives(KB, 10 * KB, 100 * KB, MB, 10 * MB, 100 * MB)
+                .register(meterRegistry)
+                .record(bytesSent);
+
+        long bytesReceived = request.getContentLengthLong();
+        if (bytesReceived > 0) {
+            DistributionSummary.builder("muralia.http.server.bytes.received")
+                    .description("Declared request body bytes per request")
+                    .baseUnit("bytes")
+                    .tags(tags)
+                    .serviceLevelObjectives(KB, 10 * KB, 100 * KB, MB, 10 * MB, 100 * MB)
+                    .register(meterRegistry)
+                    .record(bytesReceived);
+        }
+    }
+
+    /**
+     * Counts what is written through the output stream. Writer output (error pages) is not counted.
+     */
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+
+        private CountingOutputStream outputStream;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new CountingOutputStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        long bytesSent() {
+            return outputStream != null ? outputStream.count : 0;
+        }
+    }
+
+    private static final class CountingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+        private volatile long count;
+
+        CountingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -10,6 +10,8 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -21,9 +23,11 @@ import java.util.Arrays;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final ManagementPort managementPort;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, ManagementPort managementPort) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.managementPort = managementPort;
     }
 
     @Bean
@@ -59,11 +63,17 @@ public class SecurityConfig {
                 .requestMatchers("/", "/index.html", "/assets/**", "/favicon.ico", "/*.js", "/*.css", "/*.png", "/*.jpg", "/*.svg").permitAll()
                 // Health check endpoint
                 .requestMatchers("/actuator/health", "/actuator/info").permitAll()
+                // Prometheus scrape endpoint, only on the management port which stays off the public ingress
+                .requestMatchers(new AndRequestMatcher(managementPort, new AntPathRequestMatcher("/actuator/prometheus"))).permitAll()
+                .requestMatchers("/actuator/prometheus").denyAll()
                 // Public API endpoints
                 .requestMatchers("/api/auth/register", "/api/auth/login").permitAll()
                 .requestMatchers("/api/images").permitAll() // GET images is public
+                .requestMatchers("/api/images/stream").permitAll() // SSE feed of gallery changes is public
                 .requestMatchers("/api/images/{imageId}").permitAll() // GET specific image is public
                 .requestMatchers("/api/images/{imageId}/file").permitAll() // GET image file is public
+                .requestMatchers("/api/images/{imageId}/thumbnail").permitAll() // GET image thumbnail is public
+                .requestMatchers("/api/customers/{customerId}/images").permitAll() // GET a customer's images is public
                 // Swagger/OpenAPI docs
                 .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                 // All other API endpoints require authentication
@@ -0,0 +1,50 @@
+package com.muralia.config;
+
+import com.muralia.service.image.SerializedImageListResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Writes pre-rendered gallery pages as they are, instead of handing them to Jackson.
+ *
+ * Registered as a bean, Spring Boot puts it ahead of the default converters.
+ */
+@Component
+public class SerializedJsonHttpMessageConverter extends AbstractHttpMessageConverter<SerializedImageListResponse> {
+
+    public SerializedJsonHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return SerializedImageListResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected SerializedImageListResponse readInternal(Class<? extends SerializedImageListResponse> clazz,
+                                                       HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Pre-rendered responses are write-only", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(SerializedImageListResponse response, MediaType contentType) {
+        return (long) response.getJson().length;
+    }
+
+    @Override
+    protected void writeInternal(SerializedImageListResponse response, HttpOutputMessage outputMessage) throws IOException {
+        outputMessage.getBody().write(response.getJson());
+    }
+}
@@ -0,0 +1,22 @@
+package com.muralia.config;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factories for the application's own background pools.
+ *
+ * With {@code spring.threads.virtual.enabled} the pools keep their size and queue bounds, which are what
+ * limit the work, but run it on virtual threads like Tomcat and the scheduler do.
+ */
+public final class WorkerThreads {
+
+    private WorkerThreads() {
+    }
+
+    public static ThreadFactory factory(String name, boolean virtual, int priority) {
+        if (virtual) {
+            return Thread.ofVirtual().name(name + "-", 1).factory();
+        }
+        return Thread.ofPlatform().name(name + "-", 1).daemon(true).priority(priority).factory();
+    }
+}
@@ -0,0 +1,23 @@
+package com.muralia.controller;
+
+import com.muralia.api.CustomersApi;
+import com.muralia.api.model.ImageListResponse;
+import com.muralia.service.ImageService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class CustomersController implements CustomersApi {
+
+    private final ImageService imageService;
+
+    public CustomersController(ImageService imageService) {
+        this.imageService = imageService;
+    }
+
+    @Override
+    public ResponseEntity<ImageListResponse> _getCustomerImages(Long customerId, Integer limit, String cursor) {
+        ImageListResponse response = imageService.getCustomerImages(customerId, limit, cursor);
+        return ResponseEntity.ok(response);
+    }
+}
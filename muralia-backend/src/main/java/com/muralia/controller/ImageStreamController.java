@@ -0,0 +1,44 @@
+package com.muralia.controller;
+
+import com.muralia.service.image.ImageEventStream;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Server-Sent Events feed of gallery changes. Mapped by hand rather than generated from the OpenAPI
+ * spec, whose generator has no return type for a stream.
+ */
+@RestController
+public class ImageStreamController {
+
+    private final ImageEventStream imageEventStream;
+
+    public ImageStreamController(ImageEventStream imageEventStream) {
+        this.imageEventStream = imageEventStream;
+    }
+
+    /**
+     * Events are {@code uploaded} and {@code deleted} with {@code {"imageId": ...}}, and {@code resync} when
+     * the client fell behind and should reload the gallery. Browsers resend the last event id on reconnect.
+     */
+    @GetMapping(path = "/api/images/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamImages(
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        return imageEventStream.subscribe(lastEventId)
+                .map(emitter -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.noStore())
+                        // Keeps nginx and similar proxies from buffering the stream
+                        .header("X-Accel-Buffering", "no")
+                        .body(emitter))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .build());
+    }
+}
@@ -1,30 +1,41 @@
 package com.muralia.controller;
 
 import com.muralia.api.ImagesApi;
+import com.muralia.api.model.BatchUploadResponse;
 import com.muralia.api.model.Image;
 import com.muralia.api.model.ImageListResponse;
+import com.muralia.repository.projection.ImageFileMetadata;
+import com.muralia.repository.projection.ThumbnailMetadata;
 import com.muralia.service.ImageService;
-import com.muralia.service.impl.ImageServiceImpl;
-import org.springframework.core.io.ByteArrayResource;
+import com.muralia.service.image.GalleryPageCache;
+import com.muralia.service.image.GalleryVersion;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
 public class ImagesController implements ImagesApi {
 
     private final ImageService imageService;
-    private final ImageServiceImpl imageServiceImpl;
+    private final GalleryPageCache galleryPageCache;
+    private final GalleryVersion galleryVersion;
 
-    public ImagesController(ImageService imageService, ImageServiceImpl imageServiceImpl) {
+    public ImagesController(ImageService imageService, GalleryPageCache galleryPageCache, GalleryVersion galleryVersion) {
         this.imageService = imageService;
-        this.imageServiceImpl = imageServiceImpl;
+        this.galleryPageCache = galleryPageCache;
+        this.galleryVersion = galleryVersion;
     }
 
     @Override
@@ -33,30 +44,88 @@ public class ImagesController implements ImagesApi {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Looked up first, so ids that don't exist (any more) get their 404 whatever the client sends, then
+     * validated against the image itself: a weak ETag over the rendered fields and its upload time.
+     */
     @Override
     public ResponseEntity<Image> _getImageById(UUID imageId) {
         Image image = imageService.getImageById(imageId);
-        return ResponseEntity.ok(image);
+        String etag = "W/\"" + imageId + "-" + Integer.toHexString(image.hashCode()) + "\"";
+        if (isNotModified(etag, image.getUploadedAt().toInstant().toEpochMilli())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(image);
     }
 
+    /**
+     * Serves the image bytes with a strong ETag (content SHA-256) and Last-Modified.
+     * Spring answers If-None-Match / If-Modified-Since with 304 from these headers before the body is
+     * written, and turns Range requests into 206 single- or multi-part responses. The resource is lazy,
+     * so neither the content cache nor the blob is touched unless a body is actually sent.
+     */
     @Override
     public ResponseEntity<Resource> _getImageFile(UUID imageId) {
-        byte[] imageBytes = imageService.getImageFileBytes(imageId);
-        String mimeType = imageServiceImpl.getImageMimeType(imageId);
+        ImageFileMetadata file = imageService.getImageFileMetadata(imageId);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(file.mimeType()))
+                .eTag(file.contentHash())
+                .lastModified(file.uploadedAt().toInstant())
+                .header(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable")
+                .body(imageService.getImageContent(file));
+    }
+
+    /**
+     * Serves a ready thumbnail like an image file, or the original while it is still being generated.
+     * The fallback must not be cached for long, but keeps the original's ETag so revalidation is cheap
+     * until the thumbnail, with its own ETag, replaces it.
+     */
+    @Override
+    public ResponseEntity<Resource> _getImageThumbnail(UUID imageId, Integer size) {
+        Optional<ThumbnailMetadata> thumbnail = imageService.findImageThumbnail(imageId, size);
 
-        ByteArrayResource resource = new ByteArrayResource(imageBytes);
+        if (thumbnail.isEmpty()) {
+            ImageFileMetadata file = imageService.getImageFileMetadata(imageId);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(file.mimeType()))
+                    .eTag(file.contentHash())
+                    .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                    .body(imageService.getImageContent(file));
+        }
 
+        ThumbnailMetadata ready = thumbnail.get();
         return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(mimeType))
-                .contentLength(imageBytes.length)
-                .header(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000")
-                .body(resource);
+                .contentType(MediaType.parseMediaType(ready.mimeType()))
+                .eTag(ready.contentHash() + "-" + ready.maxEdge())
+                .lastModified(ready.updatedAt().toInstant())
+                .header(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable")
+                .body(imageService.getThumbnailContent(ready));
     }
 
+    /**
+     * Polls with the current gallery validators get a 304 before anything is looked up. Otherwise the
+     * first offset pages come pre-rendered from the page cache and only later pages query the database.
+     */
     @Override
-    public ResponseEntity<ImageListResponse> _getLatestImages(Integer limit, Integer offset) {
-        ImageListResponse response = imageService.getLatestImages(limit, offset);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<ImageListResponse> _getLatestImages(Integer limit, Integer offset, String cursor) {
+        GalleryVersion.Validators validators = galleryVersion.validators();
+        if (isNotModified(validators.etag(), validators.lastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        ImageListResponse response;
+        if ((cursor == null || cursor.isBlank()) && galleryPageCache.covers(limit, offset)) {
+            response = galleryPageCache.get(limit, offset, () -> imageService.getLatestImages(limit, offset, null));
+        } else {
+            response = imageService.getLatestImages(limit, offset, cursor);
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(response);
     }
 
     @Override
@@ -64,4 +133,20 @@ public class ImagesController implements ImagesApi {
         Image image = imageService.uploadImage(file, title, description);
         return ResponseEntity.status(HttpStatus.CREATED).body(image);
     }
+
+    @Override
+    public ResponseEntity<BatchUploadResponse> _uploadImages(List<MultipartFile> files, String title, String description) {
+        BatchUploadResponse response = imageService.uploadImages(files, title, description);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Evaluates If-None-Match / If-Modified-Since and sets ETag and Last-Modified on the response either
+     * way, so a 304 needs no body and a 200 only adds its own headers.
+     */
+    private static boolean isNotModified(String etag, long lastModified) {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        ServletWebRequest webRequest = new ServletWebRequest(attributes.getRequest(), attributes.getResponse());
+        return webRequest.checkNotModified(etag, lastModified);
+    }
 }
@@ -0,0 +1,64 @@
+package com.muralia.controller;
+
+import com.muralia.api.UploadsApi;
+import com.muralia.api.model.CreateUploadSessionRequest;
+import com.muralia.api.model.Image;
+import com.muralia.api.model.UploadSession;
+import com.muralia.service.UploadSessionService;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+
+@RestController
+public class UploadsController implements UploadsApi {
+
+    private final UploadSessionService uploadSessionService;
+
+    public UploadsController(UploadSessionService uploadSessionService) {
+        this.uploadSessionService = uploadSessionService;
+    }
+
+    @Override
+    public ResponseEntity<UploadSession> _createUploadSession(CreateUploadSessionRequest createUploadSessionRequest) {
+        UploadSession session = uploadSessionService.createSession(createUploadSessionRequest);
+        return ResponseEntity.status(HttpStatus.CREATED).body(session);
+    }
+
+    @Override
+    public ResponseEntity<UploadSession> _getUploadSession(UUID uploadId) {
+        UploadSession session = uploadSessionService.getSession(uploadId);
+        return ResponseEntity.ok(session);
+    }
+
+    @Override
+    public ResponseEntity<Void> _cancelUploadSession(UUID uploadId) {
+        uploadSessionService.cancelSession(uploadId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * The body arrives as a stream over the request (see {@link com.muralia.config.BlobResourceHttpMessageConverter}),
+     * so the chunk is written to disk as it is received.
+     */
+    @Override
+    public ResponseEntity<UploadSession> _uploadChunk(UUID uploadId, Long offset, Resource body) {
+        try (InputStream chunk = body.getInputStream()) {
+            UploadSession session = uploadSessionService.appendChunk(uploadId, offset, chunk);
+            return ResponseEntity.ok(session);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read chunk of upload " + uploadId, e);
+        }
+    }
+
+    @Override
+    public ResponseEntity<Image> _completeUploadSession(UUID uploadId) {
+        Image image = uploadSessionService.completeSession(uploadId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(image);
+    }
+}
@@ -0,0 +1,43 @@
+package com.muralia.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * One stored copy of a distinct image content, identified by its SHA-256.
+ * Images reference it through {@code images.content_hash}; {@code refCount} tracks how many do.
+ * Reference counts are maintained with atomic SQL updates by
+ * {@link com.muralia.storage.ContentAddressedStorage}, never through this entity.
+ */
+@Entity
+@Table(name = "blobs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlobEntity {
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "storage_backend", nullable = false, length = 20)
+    private String storageBackend;
+
+    @Column(name = "storage_key", nullable = false)
+    private String storageKey;
+
+    @Column(name = "byte_size", nullable = false)
+    private Long byteSize;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+}
@@ -21,6 +21,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString(exclude = "images")
+@EntityListeners(CustomerEntityListener.class)
 public class CustomerEntity {
 
     @Id
@@ -0,0 +1,25 @@
+package com.muralia.entity;
+
+import com.muralia.event.CustomerChangedEvent;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Announces customer changes as {@link CustomerChangedEvent}s. Created through Spring, which Hibernate
+ * uses as its bean container, so it can get the event publisher injected.
+ */
+public class CustomerEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CustomerEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(CustomerEntity customer) {
+        eventPublisher.publishEvent(new CustomerChangedEvent(customer.getId()));
+    }
+}
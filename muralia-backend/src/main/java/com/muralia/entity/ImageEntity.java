@@ -1,26 +1,35 @@
 package com.muralia.entity;
 
+import com.muralia.entity.id.UuidV7Id;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
 
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
 @Table(name = "images", indexes = {
-    @Index(name = "idx_uploaded_at", columnList = "uploaded_at")
+    @Index(name = "idx_images_uploaded_at_id", columnList = "uploaded_at DESC, id DESC"),
+    @Index(name = "idx_images_content_hash", columnList = "content_hash"),
+    @Index(name = "idx_images_customer_uploaded_at_id", columnList = "customer_id, uploaded_at DESC, id DESC")
 })
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class ImageEntity {
+public class ImageEntity implements Persistable<UUID> {
 
+    /**
+     * Time-ordered UUIDv7, so new rows are appended to the primary key index rather than scattered
+     * across it; rows created before are random v4 ids. Usually assigned before saving, so the URLs
+     * derived from it are part of the single INSERT, otherwise generated on persist.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @UuidV7Id
     private UUID id;
 
     @Column(nullable = false)
@@ -44,18 +53,18 @@ public class ImageEntity {
     @Column(name = "mime_type", nullable = false, length = 100)
     private String mimeType;
 
+    /**
+     * SHA-256 of the content; references the shared copy in {@link BlobEntity}.
+     */
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
     @Column
     private Integer width;
 
     @Column
     private Integer height;
 
-    @Column(name = "image_data", nullable = false, columnDefinition = "bytea")
-    private byte[] imageData;
-
-    @Column(name = "thumbnail_data", columnDefinition = "bytea")
-    private byte[] thumbnailData;
-
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "customer_id", nullable = false, foreignKey = @ForeignKey(name = "fk_image_customer"))
     private CustomerEntity customer;
@@ -63,8 +72,25 @@ public class ImageEntity {
     @Column(name = "uploaded_at", nullable = false, updatable = false)
     private OffsetDateTime uploadedAt;
 
+    /**
+     * With an assigned id, whether the entity still has to be inserted can't be told from the id.
+     */
+    @Transient
+    private boolean persisted;
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
     @PrePersist
     protected void onCreate() {
         uploadedAt = OffsetDateTime.now();
     }
+
+    @PostPersist
+    @PostLoad
+    protected void markPersisted() {
+        persisted = true;
+    }
 }
@@ -0,0 +1,63 @@
+package com.muralia.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A downscaled rendition of a stored content, one row per content and size.
+ * Rows are created {@link ThumbnailStatus#PENDING} with the upload and filled in by the background
+ * thumbnail pipeline; storage columns are only set once the thumbnail is {@link ThumbnailStatus#READY}.
+ */
+@Entity
+@Table(name = "thumbnails", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_thumbnails_content_hash_max_edge", columnNames = {"content_hash", "max_edge"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ThumbnailEntity {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "max_edge", nullable = false)
+    private Integer maxEdge;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ThumbnailStatus status;
+
+    @Column(name = "mime_type", length = 100)
+    private String mimeType;
+
+    @Column
+    private Integer width;
+
+    @Column
+    private Integer height;
+
+    @Column(name = "byte_size")
+    private Long byteSize;
+
+    @Column(name = "storage_backend", length = 20)
+    private String storageBackend;
+
+    @Column(name = "storage_key")
+    private String storageKey;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
@@ -0,0 +1,7 @@
+package com.muralia.entity;
+
+public enum ThumbnailStatus {
+    PENDING,
+    READY,
+    FAILED
+}
@@ -0,0 +1,20 @@
+package com.muralia.entity.id;
+
+import org.hibernate.Interceptor;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Hibernate takes an entity with a generated id type that already has an id to be detached and refuses
+ * to persist it. For entities implementing {@link Persistable} this defers that decision to the entity,
+ * the same way Spring Data decides between persist and merge.
+ */
+public class AssignedIdInterceptor implements Interceptor {
+
+    @Override
+    public Boolean isTransient(Object entity) {
+        if (entity instanceof Persistable<?> persistable) {
+            return persistable.isNew();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,40 @@
+package com.muralia.entity.id;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Time-ordered UUIDs (RFC 9562 version 7): 48 bits of Unix epoch milliseconds followed by 74 random bits.
+ * Consecutive ids land next to each other in a B-tree index instead of at random pages, while staying
+ * as hard to guess as random UUIDs. Ordering is to the millisecond; ids created within the same
+ * millisecond are in random order.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private UuidV7() {
+    }
+
+    public static UUID generate() {
+        return generate(System.currentTimeMillis());
+    }
+
+    static UUID generate(long epochMillis) {
+        byte[] random = new byte[10];
+        RANDOM.nextBytes(random);
+
+        long mostSigBits = (epochMillis & 0xFFFF_FFFF_FFFFL) << 16
+                | 0x7000L // version 7
+                | (random[0] & 0x0FL) << 8
+                | (random[1] & 0xFFL);
+
+        long leastSigBits = 0;
+        for (int i = 2; i < 10; i++) {
+            leastSigBits = leastSigBits << 8 | (random[i] & 0xFFL);
+        }
+        leastSigBits = leastSigBits & 0x3FFF_FFFF_FFFF_FFFFL | 0x8000_0000_0000_0000L; // IETF variant
+
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
@@ -0,0 +1,8 @@
+package com.muralia.event;
+
+/**
+ * Published when a customer row is updated or deleted through JPA, for anything holding on to
+ * customer data beyond a transaction.
+ */
+public record CustomerChangedEvent(Long customerId) {
+}
@@ -0,0 +1,9 @@
+package com.muralia.event;
+
+import java.util.UUID;
+
+/**
+ * Published by the image service when an image has been deleted.
+ */
+public record ImageDeletedEvent(UUID imageId, String contentHash) {
+}
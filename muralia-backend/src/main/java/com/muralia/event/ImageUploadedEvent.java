@@ -0,0 +1,11 @@
+package com.muralia.event;
+
+import java.util.UUID;
+
+/**
+ * Published by the image service when a new image has been stored.
+ * Listeners that touch shared state should use {@code @TransactionalEventListener}
+ * so they only react once the upload has committed.
+ */
+public record ImageUploadedEvent(UUID imageId, String contentHash) {
+}
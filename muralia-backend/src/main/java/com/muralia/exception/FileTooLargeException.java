@@ -0,0 +1,11 @@
+package com.muralia.exception;
+
+/**
+ * Exception thrown when an uploaded file exceeds the maximum allowed size.
+ */
+public class FileTooLargeException extends RuntimeException {
+
+    public FileTooLargeException(long maxBytes) {
+        super("File exceeds the maximum allowed size of " + maxBytes + " bytes.");
+    }
+}
@@ -0,0 +1,11 @@
+package com.muralia.exception;
+
+/**
+ * Exception thrown when a batch upload contains no files or more than the allowed number.
+ */
+public class InvalidBatchSizeException extends RuntimeException {
+
+    public InvalidBatchSizeException(int count, int maxFiles) {
+        super("A batch must contain between 1 and " + maxFiles + " files, got " + count + ".");
+    }
+}
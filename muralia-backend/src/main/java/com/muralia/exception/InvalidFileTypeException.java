@@ -8,10 +8,33 @@ public class InvalidFileTypeException extends RuntimeException {
     private final String contentType;
 
     public InvalidFileTypeException(String contentType) {
-        super("File must be an image. Invalid content type: " + contentType);
+        this(contentType, "File must be an image. Invalid content type: " + contentType);
+    }
+
+    private InvalidFileTypeException(String contentType, String message) {
+        super(message);
         this.contentType = contentType;
     }
 
+    /**
+     * For content whose leading bytes match none of the supported image formats, whatever its declared type.
+     */
+    public static InvalidFileTypeException unrecognizedContent(String declaredContentType) {
+        String message = "File content is not a supported image (JPEG, PNG, GIF or WebP).";
+        if (declaredContentType != null) {
+            message += " Declared content type: " + declaredContentType;
+        }
+        return new InvalidFileTypeException(declaredContentType, message);
+    }
+
+    /**
+     * For content recognised as an image format whose header turns out to be truncated or corrupt.
+     */
+    public static InvalidFileTypeException corruptHeader(String mimeType) {
+        return new InvalidFileTypeException(mimeType,
+                "File content looks like " + mimeType + " but its header is truncated or corrupt.");
+    }
+
     public String getContentType() {
         return contentType;
     }
@@ -0,0 +1,11 @@
+package com.muralia.exception;
+
+/**
+ * Exception thrown when password hashing is saturated and a login or registration is shed.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException() {
+        super("Too many sign-in attempts right now, please try again shortly.");
+    }
+}
@@ -0,0 +1,17 @@
+package com.muralia.exception;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when stored content can't be decoded as an image, so retrying can't help.
+ */
+public class UndecodableImageException extends IOException {
+
+    public UndecodableImageException(String message) {
+        super(message);
+    }
+
+    public UndecodableImageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
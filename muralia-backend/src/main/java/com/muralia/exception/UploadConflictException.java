@@ -0,0 +1,12 @@
+package com.muralia.exception;
+
+/**
+ * Exception thrown when an upload request does not match the state of its session,
+ * e.g. a chunk at the wrong offset or completing before all bytes were received.
+ */
+public class UploadConflictException extends RuntimeException {
+
+    public UploadConflictException(String message) {
+        super(message);
+    }
+}
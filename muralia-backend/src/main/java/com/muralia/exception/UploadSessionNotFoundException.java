@@ -0,0 +1,13 @@
+package com.muralia.exception;
+
+import java.util.UUID;
+
+/**
+ * Exception thrown when an upload session does not exist, has expired or belongs to another customer.
+ */
+public class UploadSessionNotFoundException extends RuntimeException {
+
+    public UploadSessionNotFoundException(UUID uploadId) {
+        super("Upload session not found with id: " + uploadId);
+    }
+}
@@ -0,0 +1,13 @@
+package com.muralia.repository;
+
+import com.muralia.entity.BlobEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Read access to the blob catalog. Reference counts are only changed by
+ * {@link com.muralia.storage.ContentAddressedStorage}.
+ */
+@Repository
+public interface BlobRepository extends JpaRepository<BlobEntity, String> {
+}
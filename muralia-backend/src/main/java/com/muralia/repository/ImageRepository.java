@@ -1,19 +1,80 @@
 package com.muralia.repository;
 
 import com.muralia.entity.ImageEntity;
-import org.springframework.data.domain.Page;
+import com.muralia.repository.projection.ImageFileMetadata;
+import com.muralia.repository.projection.ImageMetadata;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface ImageRepository extends JpaRepository<ImageEntity, UUID> {
 
-    @Query("SELECT i FROM ImageEntity i ORDER BY i.uploadedAt DESC")
-    Page<ImageEntity> findLatestImages(Pageable pageable);
+    /**
+     * Offset page in gallery order. Returned as a Slice so Spring Data never issues a count query;
+     * totals come from {@link com.muralia.service.ImageCountStrategy}.
+     */
+    @Query("SELECT new com.muralia.repository.projection.ImageMetadata(" +
+            "i.id, i.url, i.thumbnailUrl, i.title, i.description, i.fileName, i.fileSize, i.mimeType, " +
+            "i.width, i.height, c.id, c.username, i.uploadedAt) " +
+            "FROM ImageEntity i JOIN i.customer c ORDER BY i.uploadedAt DESC, i.id DESC")
+    Slice<ImageMetadata> findLatestImageMetadata(Pageable pageable);
+
+    /**
+     * Keyset page: images strictly after the given (uploadedAt, id) position in
+     * {@code uploaded_at DESC, id DESC} order. Served by idx_images_uploaded_at_id, no OFFSET and no count.
+     */
+    @Query("SELECT new com.muralia.repository.projection.ImageMetadata(" +
+            "i.id, i.url, i.thumbnailUrl, i.title, i.description, i.fileName, i.fileSize, i.mimeType, " +
+            "i.width, i.height, c.id, c.username, i.uploadedAt) " +
+            "FROM ImageEntity i JOIN i.customer c " +
+            "WHERE i.uploadedAt <= :uploadedAt AND (i.uploadedAt < :uploadedAt OR i.id < :id) " +
+            "ORDER BY i.uploadedAt DESC, i.id DESC")
+    Slice<ImageMetadata> findLatestImageMetadataBefore(@Param("uploadedAt") OffsetDateTime uploadedAt,
+                                                       @Param("id") UUID id,
+                                                       Pageable pageable);
+
+    /**
+     * First page of one customer's images in gallery order, served by idx_images_customer_uploaded_at_id.
+     */
+    @Query("SELECT new com.muralia.repository.projection.ImageMetadata(" +
+            "i.id, i.url, i.thumbnailUrl, i.title, i.description, i.fileName, i.fileSize, i.mimeType, " +
+            "i.width, i.height, c.id, c.username, i.uploadedAt) " +
+            "FROM ImageEntity i JOIN i.customer c WHERE c.id = :customerId " +
+            "ORDER BY i.uploadedAt DESC, i.id DESC")
+    Slice<ImageMetadata> findCustomerImageMetadata(@Param("customerId") Long customerId, Pageable pageable);
+
+    /**
+     * Keyset page of one customer's images after the given (uploadedAt, id) position, same index.
+     */
+    @Query("SELECT new com.muralia.repository.projection.ImageMetadata(" +
+            "i.id, i.url, i.thumbnailUrl, i.title, i.description, i.fileName, i.fileSize, i.mimeType, " +
+            "i.width, i.height, c.id, c.username, i.uploadedAt) " +
+            "FROM ImageEntity i JOIN i.customer c WHERE c.id = :customerId " +
+            "AND i.uploadedAt <= :uploadedAt AND (i.uploadedAt < :uploadedAt OR i.id < :id) " +
+            "ORDER BY i.uploadedAt DESC, i.id DESC")
+    Slice<ImageMetadata> findCustomerImageMetadataBefore(@Param("customerId") Long customerId,
+                                                         @Param("uploadedAt") OffsetDateTime uploadedAt,
+                                                         @Param("id") UUID id,
+                                                         Pageable pageable);
+
+    @Query("SELECT new com.muralia.repository.projection.ImageMetadata(" +
+            "i.id, i.url, i.thumbnailUrl, i.title, i.description, i.fileName, i.fileSize, i.mimeType, " +
+            "i.width, i.height, c.id, c.username, i.uploadedAt) " +
+            "FROM ImageEntity i JOIN i.customer c WHERE i.id = :imageId")
+    Optional<ImageMetadata> findMetadataById(@Param("imageId") UUID imageId);
+
+    @Query("SELECT new com.muralia.repository.projection.ImageFileMetadata(" +
+            "i.id, i.mimeType, i.fileSize, i.contentHash, i.uploadedAt, b.storageBackend, b.storageKey) " +
+            "FROM ImageEntity i JOIN BlobEntity b ON b.contentHash = i.contentHash WHERE i.id = :imageId")
+    Optional<ImageFileMetadata> findFileMetadataById(@Param("imageId") UUID imageId);
 
     boolean existsByIdAndCustomerId(UUID imageId, Long customerId);
 }
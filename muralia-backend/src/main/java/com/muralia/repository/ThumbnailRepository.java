@@ -0,0 +1,71 @@
+package com.muralia.repository;
+
+import com.muralia.entity.ThumbnailEntity;
+import com.muralia.entity.ThumbnailStatus;
+import com.muralia.repository.projection.ThumbnailMetadata;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ThumbnailRepository extends JpaRepository<ThumbnailEntity, UUID> {
+
+    /**
+     * Requests every given size for every given content in one statement; pairs that were already
+     * requested are left as they are.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO thumbnails (id, content_hash, max_edge, status, created_at, updated_at) " +
+            "SELECT gen_random_uuid(), h.content_hash, e.max_edge, 'PENDING', now(), now() " +
+            "FROM unnest(ARRAY[:contentHashes]) AS h(content_hash) CROSS JOIN unnest(ARRAY[:maxEdges]) AS e(max_edge) " +
+            "ON CONFLICT (content_hash, max_edge) DO NOTHING", nativeQuery = true)
+    int insertPending(@Param("contentHashes") Collection<String> contentHashes,
+                      @Param("maxEdges") Collection<Integer> maxEdges);
+
+    List<ThumbnailEntity> findByContentHashAndStatus(String contentHash, ThumbnailStatus status);
+
+    @Query("SELECT DISTINCT t.contentHash FROM ThumbnailEntity t WHERE t.status = :status")
+    List<String> findContentHashesByStatus(@Param("status") ThumbnailStatus status, Pageable pageable);
+
+    /**
+     * Publishes a generated thumbnail. Returns 0 when the row was meanwhile completed elsewhere or
+     * removed together with its content, in which case the caller owns the stored copy.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ThumbnailEntity t SET t.status = com.muralia.entity.ThumbnailStatus.READY, " +
+            "t.mimeType = :mimeType, t.width = :width, t.height = :height, t.byteSize = :byteSize, " +
+            "t.storageBackend = :storageBackend, t.storageKey = :storageKey, t.updatedAt = :now " +
+            "WHERE t.id = :id AND t.status = com.muralia.entity.ThumbnailStatus.PENDING")
+    int markReady(@Param("id") UUID id,
+                  @Param("mimeType") String mimeType,
+                  @Param("width") int width,
+                  @Param("height") int height,
+                  @Param("byteSize") long byteSize,
+                  @Param("storageBackend") String storageBackend,
+                  @Param("storageKey") String storageKey,
+                  @Param("now") OffsetDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ThumbnailEntity t SET t.status = com.muralia.entity.ThumbnailStatus.FAILED, t.updatedAt = :now " +
+            "WHERE t.id IN :ids AND t.status = com.muralia.entity.ThumbnailStatus.PENDING")
+    int markFailed(@Param("ids") Collection<UUID> ids, @Param("now") OffsetDateTime now);
+
+    @Query("SELECT new com.muralia.repository.projection.ThumbnailMetadata(" +
+            "t.contentHash, t.maxEdge, t.mimeType, t.byteSize, t.updatedAt, t.storageBackend, t.storageKey) " +
+            "FROM ImageEntity i JOIN ThumbnailEntity t ON t.contentHash = i.contentHash " +
+            "WHERE i.id = :imageId AND t.maxEdge = :maxEdge AND t.status = com.muralia.entity.ThumbnailStatus.READY")
+    Optional<ThumbnailMetadata> findReadyThumbnail(@Param("imageId") UUID imageId, @Param("maxEdge") int maxEdge);
+}
@@ -0,0 +1,36 @@
+package com.muralia.repository;
+
+import com.muralia.entity.UploadSessionEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSessionEntity, UUID> {
+
+    Optional<UploadSessionEntity> findByIdAndCustomerId(UUID id, Long customerId);
+
+    List<UploadSessionEntity> findByExpiresAtBefore(OffsetDateTime now);
+
+    /**
+     * Records a written chunk, only if no other chunk moved the session on in the meantime.
+     *
+     * @return 1 when the session was advanced, 0 when it is gone or no longer at {@code offset}
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSessionEntity s SET s.receivedBytes = :receivedBytes, s.expiresAt = :expiresAt " +
+            "WHERE s.id = :id AND s.receivedBytes = :offset")
+    int advance(@Param("id") UUID id,
+                @Param("offset") long offset,
+                @Param("receivedBytes") long receivedBytes,
+                @Param("expiresAt") OffsetDateTime expiresAt);
+}
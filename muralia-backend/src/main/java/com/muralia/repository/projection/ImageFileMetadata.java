@@ -0,0 +1,18 @@
+package com.muralia.repository.projection;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * What the file endpoint needs to answer validators and build headers without touching the image bytes.
+ */
+public record ImageFileMetadata(
+        UUID id,
+        String mimeType,
+        Long fileSize,
+        String contentHash,
+        OffsetDateTime uploadedAt,
+        String storageBackend,
+        String storageKey
+) {
+}
@@ -0,0 +1,26 @@
+package com.muralia.repository.projection;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Read-only view of an image row without its binary columns.
+ * Carries exactly what {@link com.muralia.service.mapper.ImageMapper} needs to build the API model,
+ * including the owner's username, so listing and lookup queries never load image bytes.
+ */
+public record ImageMetadata(
+        UUID id,
+        String url,
+        String thumbnailUrl,
+        String title,
+        String description,
+        String fileName,
+        Long fileSize,
+        String mimeType,
+        Integer width,
+        Integer height,
+        Long customerId,
+        String customerUsername,
+        OffsetDateTime uploadedAt
+) {
+}
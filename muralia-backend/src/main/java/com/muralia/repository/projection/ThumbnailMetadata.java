@@ -0,0 +1,17 @@
+package com.muralia.repository.projection;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A ready thumbnail of an image, with what the thumbnail endpoint needs to build headers and open the content.
+ */
+public record ThumbnailMetadata(
+        String contentHash,
+        Integer maxEdge,
+        String mimeType,
+        Long byteSize,
+        OffsetDateTime updatedAt,
+        String storageBackend,
+        String storageKey
+) {
+}
@@ -0,0 +1,18 @@
+package com.muralia.service;
+
+import com.muralia.service.auth.AuthenticatedCustomer;
+import io.jsonwebtoken.Claims;
+
+import java.util.Optional;
+
+/**
+ * Turns the claims of a verified token into the request's principal.
+ * Selected with {@code muralia.security.principal.mode}.
+ */
+public interface CustomerPrincipalResolver {
+
+    /**
+     * @return the customer the token was issued to, or empty when it can't be authenticated
+     */
+    Optional<AuthenticatedCustomer> resolve(Claims claims);
+}
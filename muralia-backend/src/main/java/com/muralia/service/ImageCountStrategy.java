@@ -0,0 +1,13 @@
+package com.muralia.service;
+
+/**
+ * Source of {@code ImageListResponse.total}.
+ * Selected with {@code muralia.images.total-count.mode}: {@code exact}, {@code estimate} or {@code counter}.
+ */
+public interface ImageCountStrategy {
+
+    /**
+     * @return the (possibly approximate) number of images in the gallery
+     */
+    long countImages();
+}
@@ -1,15 +1,28 @@
 package com.muralia.service;
 
+import com.muralia.api.model.BatchUploadResponse;
 import com.muralia.api.model.Image;
 import com.muralia.api.model.ImageListResponse;
+import com.muralia.repository.projection.ImageFileMetadata;
+import com.muralia.repository.projection.ThumbnailMetadata;
+import com.muralia.service.upload.SpooledUpload;
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface ImageService {
     Image uploadImage(MultipartFile file, String title, String description);
-    ImageListResponse getLatestImages(Integer limit, Integer offset);
+    Image uploadImage(SpooledUpload upload, String writtenKey, String fileName, String title, String description);
+    BatchUploadResponse uploadImages(List<MultipartFile> files, String title, String description);
+    ImageListResponse getLatestImages(Integer limit, Integer offset, String cursor);
+    ImageListResponse getCustomerImages(Long customerId, Integer limit, String cursor);
     Image getImageById(UUID imageId);
     void deleteImage(UUID imageId);
-    byte[] getImageFileBytes(UUID imageId);
+    ImageFileMetadata getImageFileMetadata(UUID imageId);
+    Resource getImageContent(ImageFileMetadata file);
+    Optional<ThumbnailMetadata> findImageThumbnail(UUID imageId, Integer size);
+    Resource getThumbnailContent(ThumbnailMetadata thumbnail);
 }
@@ -1,6 +1,9 @@
 package com.muralia.service;
 
 import com.muralia.entity.CustomerEntity;
+import io.jsonwebtoken.Claims;
+
+import java.util.Optional;
 
 public interface JwtService {
 
@@ -12,24 +15,9 @@ public interface JwtService {
     String generateToken(CustomerEntity customer);
 
     /**
-     * Extract the username (email) from the JWT token
-     * @param token the JWT token
-     * @return the username (email)
-     */
-    String extractUsername(String token);
-
-    /**
-     * Validate the JWT token
-     * @param token the JWT token
-     * @param customer the customer entity to validate against
-     * @return true if valid, false otherwise
-     */
-    boolean validateToken(String token, CustomerEntity customer);
-
-    /**
-     * Check if the token is expired
+     * Verify the signature and expiry of the JWT token, parsing it at most once
      * @param token the JWT token
-     * @return true if expired, false otherwise
+     * @return the token's claims, or empty if the token is malformed, forged or expired
      */
-    boolean isTokenExpired(String token);
+    Optional<Claims> verifyToken(String token);
 }
@@ -0,0 +1,16 @@
+package com.muralia.service;
+
+import com.muralia.api.model.CreateUploadSessionRequest;
+import com.muralia.api.model.Image;
+import com.muralia.api.model.UploadSession;
+
+import java.io.InputStream;
+import java.util.UUID;
+
+public interface UploadSessionService {
+    UploadSession createSession(CreateUploadSessionRequest request);
+    UploadSession getSession(UUID uploadId);
+    UploadSession appendChunk(UUID uploadId, long offset, InputStream chunk);
+    Image completeSession(UUID uploadId);
+    void cancelSession(UUID uploadId);
+}
@@ -0,0 +1,26 @@
+package com.muralia.service.auth;
+
+import com.muralia.entity.CustomerEntity;
+
+import java.security.Principal;
+
+/**
+ * The authenticated customer as put in the security context by the JWT filter. Carries what requests
+ * need to know about the caller without a {@link CustomerEntity}; handlers that need to reference the
+ * customer in a new row use a reference by {@link #id()} rather than loading it.
+ *
+ * @param id customer id
+ * @param username public username, shown on the customer's images
+ * @param email login email, the token subject
+ */
+public record AuthenticatedCustomer(Long id, String username, String email) implements Principal {
+
+    public static AuthenticatedCustomer of(CustomerEntity customer) {
+        return new AuthenticatedCustomer(customer.getId(), customer.getUsername(), customer.getEmail());
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -0,0 +1,26 @@
+package com.muralia.service.auth;
+
+import com.muralia.exception.CustomerNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * The customer the current request is authenticated as, read from the security context.
+ */
+public final class CurrentCustomer {
+
+    private CurrentCustomer() {
+    }
+
+    /**
+     * @throws CustomerNotFoundException when the request is not authenticated as a customer
+     */
+    public static AuthenticatedCustomer get() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !authentication.isAuthenticated() || !(authentication.getPrincipal() instanceof AuthenticatedCustomer customer)) {
+            throw new CustomerNotFoundException("User not authenticated");
+        }
+        return customer;
+    }
+}
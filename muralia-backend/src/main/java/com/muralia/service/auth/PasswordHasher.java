@@ -0,0 +1,108 @@
+package com.muralia.service.auth;
+
+import com.muralia.config.WorkerThreads;
+import com.muralia.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the deliberately slow password encoder on its own small pool instead of on request threads.
+ *
+ * At most {@code threads} hashes run at once and {@code queue-capacity} wait; anything beyond that is
+ * rejected immediately with {@link PasswordHashingBusyException}, as is a hash not done within the
+ * timeout. A login storm therefore holds at most threads + queue request threads, and no database
+ * connections, while the rest of the application keeps serving.
+ *
+ * Meters: {@code executor.*} with {@code name=password-hashing} (queue depth, active threads, completed)
+ * and the {@code muralia.password.hashing} timer per operation.
+ */
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          MeterRegistry meterRegistry,
+                          @Value("${muralia.security.password-hashing.threads:2}") int threads,
+                          @Value("${muralia.security.password-hashing.queue-capacity:50}") int queueCapacity,
+                          @Value("${muralia.security.password-hashing.timeout:PT10S}") Duration timeout,
+                          @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeout = timeout;
+
+        // ArrayBlockingQueue needs a capacity of at least one; with none, only idle threads take work
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>(),
+                WorkerThreads.factory("password-hashing", virtualThreads, Thread.NORM_PRIORITY),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        new ExecutorServiceMetrics(executor, "password-hashing", Tags.empty()).bindTo(meterRegistry);
+        this.encodeTimer = Timer.builder("muralia.password.hashing")
+                .description("Time spent hashing or checking a password, excluding queueing")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("muralia.password.hashing")
+                .description("Time spent hashing or checking a password, excluding queueing")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return run(() -> encodeTimer.recordCallable(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> matchesTimer.recordCallable(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new PasswordHashingBusyException();
+        }
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new PasswordHashingBusyException();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.muralia.service.image;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.muralia.api.model.ImageListResponse;
+import com.muralia.event.ImageDeletedEvent;
+import com.muralia.event.ImageUploadedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * The first gallery pages, rendered once to JSON and served to every visitor until the gallery changes.
+ *
+ * Concurrent misses for the same page wait for a single rebuild. The {@link GalleryVersion} is part of
+ * the key, so a rebuild racing a change is stored under the old version and never served; uploads and
+ * deletes also drop the rendered pages. Changes this instance does not see (other instances, cascaded
+ * deletes of a customer's images) show up within the TTL.
+ */
+@Component
+public class GalleryPageCache {
+
+    private final ObjectMapper objectMapper;
+    private final GalleryVersion galleryVersion;
+    private final boolean enabled;
+    private final int pages;
+    private final Cache<PageKey, SerializedImageListResponse> renderedPages;
+
+    public GalleryPageCache(ObjectMapper objectMapper,
+                            GalleryVersion galleryVersion,
+                            MeterRegistry meterRegistry,
+                            @Value("${muralia.images.page-cache.enabled:true}") boolean enabled,
+                            @Value("${muralia.images.page-cache.pages:3}") int pages,
+                            @Value("${muralia.images.page-cache.max-entries:64}") long maxEntries,
+                            @Value("${muralia.images.page-cache.ttl:PT1M}") Duration ttl) {
+        this.objectMapper = objectMapper;
+        this.galleryVersion = galleryVersion;
+        this.enabled = enabled;
+        this.pages = pages;
+        this.renderedPages = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, renderedPages, "gallery-pages");
+    }
+
+    /**
+     * Whether the offset-paginated page is one of the cached first pages.
+     */
+    public boolean covers(int limit, int offset) {
+        return enabled && offset % limit == 0 && offset / limit < pages;
+    }
+
+    public SerializedImageListResponse get(int limit, int offset, Supplier<ImageListResponse> builder) {
+        return renderedPages.get(new PageKey(galleryVersion.current(), limit, offset), key -> render(builder.get()));
+    }
+
+    @TransactionalEventListener
+    public void onImageUploaded(ImageUploadedEvent event) {
+        renderedPages.invalidateAll();
+    }
+
+    @TransactionalEventListener
+    public void onImageDeleted(ImageDeletedEvent event) {
+        renderedPages.invalidateAll();
+    }
+
+    private SerializedImageListResponse render(ImageListResponse response) {
+        try {
+            return new SerializedImageListResponse(objectMapper.writeValueAsBytes(response));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to render gallery page", e);
+        }
+    }
+
+    private record PageKey(long version, int limit, int offset) {
+    }
+}
@@ -0,0 +1,66 @@
+package com.muralia.service.image;
+
+import com.muralia.event.ImageDeletedEvent;
+import com.muralia.event.ImageUploadedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the gallery changes committed by this instance and turns them into HTTP validators for the
+ * gallery listing, so that an unchanged poll is answered without any query.
+ *
+ * The weak ETag combines an id of this process, the change count and the current refresh interval:
+ * validators from another instance or a previous run never match, and changes this instance does not
+ * see (other instances, cascaded deletes of a customer's images) are picked up after the interval at
+ * most. Last-Modified is the last change seen or the start of the interval, whichever is later.
+ */
+@Component
+public class GalleryVersion {
+
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    private final long refreshMillis;
+    private volatile long changedAt = System.currentTimeMillis();
+
+    public GalleryVersion(@Value("${muralia.images.validators.refresh-interval:PT1M}") Duration refreshInterval) {
+        this.refreshMillis = refreshInterval.toMillis();
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    public Validators validators() {
+        long now = System.currentTimeMillis();
+        long interval = now / refreshMillis;
+        long current = version.get();
+        String etag = "W/\"" + instance + "-" + current + "-" + Long.toString(interval, 36) + "\"";
+        return new Validators(etag, Math.max(changedAt, interval * refreshMillis));
+    }
+
+    @TransactionalEventListener
+    public void onImageUploaded(ImageUploadedEvent event) {
+        changed();
+    }
+
+    @TransactionalEventListener
+    public void onImageDeleted(ImageDeletedEvent event) {
+        changed();
+    }
+
+    private void changed() {
+        changedAt = System.currentTimeMillis();
+        version.incrementAndGet();
+    }
+
+    /**
+     * @param etag weak entity tag, quoted
+     * @param lastModified epoch milliseconds
+     */
+    public record Validators(String etag, long lastModified) {
+    }
+}
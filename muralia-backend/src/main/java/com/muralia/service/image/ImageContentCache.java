@@ -0,0 +1,196 @@
+package com.muralia.service.image;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.muralia.event.ImageDeletedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Keeps the content of frequently requested images in memory, keyed by content hash.
+ *
+ * The cache is bounded by the total bytes held, and Caffeine's W-TinyLFU policy only admits a new
+ * entry over the one it would evict when it is requested more often, so a burst of one-off downloads
+ * does not push out the featured images. Concurrent misses for the same content share a single read,
+ * done on the requesting thread. With {@code off-heap} the bytes go to direct buffers instead of the
+ * Java heap; their total is also bounded by {@code -XX:MaxDirectMemorySize}.
+ *
+ * Only content that would otherwise be read through the heap is cached: file-backed blobs are left
+ * to the OS page cache and sendfile. Content is immutable per hash, so entries never go stale;
+ * deleting an image drops its content once the delete commits.
+ */
+@Slf4j
+@Component
+public class ImageContentCache {
+
+    private final boolean enabled;
+    private final long maxEntrySize;
+    private final boolean offHeap;
+    private final AsyncCache<String, ByteBuffer> contents;
+
+    public ImageContentCache(MeterRegistry meterRegistry,
+                             @Value("${muralia.images.file-cache.enabled:true}") boolean enabled,
+                             @Value("${muralia.images.file-cache.max-size:256MB}") DataSize maxSize,
+                             @Value("${muralia.images.file-cache.max-entry-size:10MB}") DataSize maxEntrySize,
+                             @Value("${muralia.images.file-cache.off-heap:false}") boolean offHeap) {
+        this.enabled = enabled;
+        this.maxEntrySize = Math.min(maxEntrySize.toBytes(), Integer.MAX_VALUE);
+        this.offHeap = offHeap;
+        this.contents = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String contentHash, ByteBuffer content) -> content.capacity())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, contents.synchronous(), "image-files");
+    }
+
+    /**
+     * Wraps {@code source} so that its content is served from the cache, when it is small enough and not
+     * file-backed. Otherwise returns {@code source} unchanged. Nothing is looked up or read until a body
+     * is actually written, so a 304 never touches the cache or the store.
+     */
+    public Resource get(String contentHash, Resource source, long contentLength) {
+        if (!enabled || contentLength > maxEntrySize || source.isFile()) {
+            return source;
+        }
+        return new CachedContentResource(contentHash, source, contentLength);
+    }
+
+    @TransactionalEventListener
+    public void onImageDeleted(ImageDeletedEvent event) {
+        contents.synchronous().invalidate(event.contentHash());
+    }
+
+    /**
+     * The cached content, loaded from {@code source} on a miss, or null when another request's load of
+     * the same content failed.
+     */
+    private ByteBuffer load(String contentHash, Resource source, int contentLength) throws IOException {
+        CompletableFuture<ByteBuffer> cached = contents.getIfPresent(contentHash);
+        if (cached == null) {
+            CompletableFuture<ByteBuffer> loading = new CompletableFuture<>();
+            cached = contents.asMap().putIfAbsent(contentHash, loading);
+            if (cached == null) {
+                try {
+                    ByteBuffer content = read(source, contentLength);
+                    loading.complete(content);
+                    return content;
+                } catch (IOException | RuntimeException e) {
+                    // Failed loads are removed by the cache, the next request tries again
+                    loading.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            log.debug("Shared load of {} failed, serving from the store", contentHash, e.getCause());
+            return null;
+        }
+    }
+
+    private ByteBuffer read(Resource source, int contentLength) throws IOException {
+        ByteBuffer buffer = offHeap ? ByteBuffer.allocateDirect(contentLength) : ByteBuffer.allocate(contentLength);
+        byte[] chunk = new byte[Math.min(contentLength, 64 * 1024)];
+        try (InputStream in = source.getInputStream()) {
+            int read;
+            while (buffer.hasRemaining() && (read = in.read(chunk, 0, Math.min(chunk.length, buffer.remaining()))) != -1) {
+                buffer.put(chunk, 0, read);
+            }
+        }
+        if (buffer.hasRemaining()) {
+            throw new IOException("Content " + source.getDescription() + " ended after " + buffer.position()
+                    + " of " + contentLength + " bytes");
+        }
+        return buffer.flip().asReadOnlyBuffer();
+    }
+
+    /**
+     * Content served through the cache. Every stream reads its own view of the shared buffer, so
+     * multi-range responses can read each region independently.
+     */
+    private final class CachedContentResource extends AbstractResource {
+
+        private final String contentHash;
+        private final Resource source;
+        private final long contentLength;
+
+        CachedContentResource(String contentHash, Resource source, long contentLength) {
+            this.contentHash = contentHash;
+            this.source = source;
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        public String getDescription() {
+            return "cached " + source.getDescription();
+        }
+
+        @Override
+        public long contentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            ByteBuffer content = load(contentHash, source, (int) contentLength);
+            if (content == null) {
+                // Another request's load failed: read this one directly
+                return source.getInputStream();
+            }
+
+            ByteBuffer view = content.duplicate();
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return view.hasRemaining() ? view.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (len == 0) {
+                        return 0;
+                    }
+                    if (!view.hasRemaining()) {
+                        return -1;
+                    }
+                    int count = Math.min(len, view.remaining());
+                    view.get(b, off, count);
+                    return count;
+                }
+
+                @Override
+                public long skip(long n) {
+                    int count = (int) Math.max(0, Math.min(n, view.remaining()));
+                    view.position(view.position() + count);
+                    return count;
+                }
+
+                @Override
+                public int available() {
+                    return view.remaining();
+                }
+            };
+        }
+    }
+}
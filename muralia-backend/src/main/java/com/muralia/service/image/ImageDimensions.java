@@ -0,0 +1,22 @@
+package com.muralia.service.image;
+
+/**
+ * Pixel size of an encoded image as stored, plus its EXIF orientation (1 when absent).
+ */
+public record ImageDimensions(int width, int height, int orientation) {
+
+    /**
+     * Orientations 5 to 8 rotate by a quarter turn, so viewers show the image with width and height swapped.
+     */
+    public boolean swapsAxes() {
+        return orientation >= 5 && orientation <= 8;
+    }
+
+    public int displayWidth() {
+        return swapsAxes() ? height : width;
+    }
+
+    public int displayHeight() {
+        return swapsAxes() ? width : height;
+    }
+}
@@ -0,0 +1,289 @@
+package com.muralia.service.image;
+
+import com.muralia.config.WorkerThreads;
+import com.muralia.event.ImageDeletedEvent;
+import com.muralia.event.ImageUploadedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Pushes committed uploads and deletes to Server-Sent Events subscribers.
+ *
+ * An idle subscriber is just an async request and a small queue; no thread is held. Each event is
+ * offered to every queue, and a queue with something in it is drained by a virtual thread of its own.
+ * A write to a client that stopped reading blocks only that thread, until Tomcat's write timeout drops
+ * the connection, so a slow client only ever delays itself. A queue that overflows is collapsed into a single
+ * {@code resync} event telling the client to reload the gallery, and later events are folded into it
+ * until it has been sent.
+ *
+ * Event ids are this instance's id plus a sequence number. A reconnect with {@code Last-Event-ID} replays
+ * what it missed from a short history, or gets a {@code resync} when the id is from another instance,
+ * a previous run or too far back.
+ *
+ * Meters: {@code muralia.images.stream.subscribers}, {@code muralia.images.stream.coalesced} (events
+ * replaced by a resync) and {@code muralia.images.stream.rejected}.
+ */
+@Component
+public class ImageEventStream {
+
+    private static final String RESYNC = "resync";
+
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Also serialises publishing with subscribing, so a new subscriber neither misses nor repeats an event
+    private final Deque<StreamEvent> history = new ArrayDeque<>();
+    private final ExecutorService senders;
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final int historySize;
+    private final long timeoutMillis;
+    private final Counter coalesced;
+    private final Counter rejected;
+    private long sequence;
+
+    public ImageEventStream(MeterRegistry meterRegistry,
+                            @Value("${muralia.images.stream.max-subscribers:5000}") int maxSubscribers,
+                            @Value("${muralia.images.stream.buffer-size:32}") int bufferSize,
+                            @Value("${muralia.images.stream.history-size:256}") int historySize,
+                            @Value("${muralia.images.stream.timeout:PT30M}") Duration timeout) {
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = bufferSize;
+        this.historySize = historySize;
+        this.timeoutMillis = timeout.toMillis();
+
+        // Virtual whatever spring.threads.virtual.enabled says: a subscriber has at most one drain running,
+        // so there are never more threads than subscribers, and a blocked write costs no platform thread
+        this.senders = Executors.newThreadPerTaskExecutor(
+                WorkerThreads.factory("image-stream", true, Thread.NORM_PRIORITY));
+
+        Gauge.builder("muralia.images.stream.subscribers", subscribers, Set::size)
+                .description("Open image event streams")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("muralia.images.stream.coalesced")
+                .description("Events not delivered to a slow subscriber and replaced by a resync")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("muralia.images.stream.rejected")
+                .description("Subscriptions refused because max-subscribers was reached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream resuming after {@code lastEventId}, or empty when the subscriber limit is reached.
+     */
+    public Optional<SseEmitter> subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+
+        synchronized (history) {
+            // Checked under the lock so concurrent subscribes can't overshoot the limit
+            if (subscribers.size() >= maxSubscribers) {
+                rejected.increment();
+                return Optional.empty();
+            }
+            subscribers.add(subscriber);
+            for (StreamEvent event : missedSince(lastEventId)) {
+                subscriber.offer(event);
+            }
+        }
+        return Optional.of(emitter);
+    }
+
+    @TransactionalEventListener
+    public void onImageUploaded(ImageUploadedEvent event) {
+        publish("uploaded", event.imageId());
+    }
+
+    @TransactionalEventListener
+    public void onImageDeleted(ImageDeletedEvent event) {
+        publish("deleted", event.imageId());
+    }
+
+    /**
+     * Keeps idle connections from being cut by proxies and finds the clients that went away.
+     */
+    @Scheduled(fixedRateString = "${muralia.images.stream.heartbeat-interval:PT15S}",
+            initialDelayString = "${muralia.images.stream.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offerHeartbeat();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    private void publish(String name, UUID imageId) {
+        synchronized (history) {
+            sequence++;
+            StreamEvent event = new StreamEvent(sequence, instance + "-" + sequence, name,
+                    "{\"imageId\":\"" + imageId + "\"}");
+            history.addLast(event);
+            if (history.size() > historySize) {
+                history.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    /**
+     * Must hold the history lock.
+     */
+    private List<StreamEvent> missedSince(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return List.of();
+        }
+
+        long last = parseSequence(lastEventId);
+        StreamEvent oldest = history.peekFirst();
+        if (last < 0 || last > sequence || (oldest != null && oldest.sequence() > last + 1)) {
+            return List.of(StreamEvent.resync(sequence, instance + "-" + sequence));
+        }
+
+        List<StreamEvent> missed = new ArrayList<>();
+        for (StreamEvent event : history) {
+            if (event.sequence() > last) {
+                missed.add(event);
+            }
+        }
+        return missed;
+    }
+
+    /**
+     * The sequence number of an id issued by this instance, or -1.
+     */
+    private long parseSequence(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator < 0 || !eventId.substring(0, separator).equals(instance)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Deque<StreamEvent> queue = new ArrayDeque<>();
+        private boolean draining;
+        private boolean resyncPending;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(StreamEvent event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (resyncPending || queue.size() >= bufferSize) {
+                    coalesced.increment(resyncPending ? 1 : queue.size() + 1);
+                    queue.clear();
+                    queue.addLast(StreamEvent.resync(event.sequence(), event.id()));
+                    resyncPending = true;
+                } else {
+                    queue.addLast(event);
+                }
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            senders.execute(this::drain);
+        }
+
+        void offerHeartbeat() {
+            synchronized (this) {
+                if (closed || draining) {
+                    return;
+                }
+                queue.addLast(StreamEvent.HEARTBEAT);
+                draining = true;
+            }
+            senders.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                StreamEvent event;
+                synchronized (this) {
+                    event = queue.pollFirst();
+                    if (event == null || closed) {
+                        draining = false;
+                        return;
+                    }
+                    if (RESYNC.equals(event.name())) {
+                        resyncPending = false;
+                    }
+                }
+
+                try {
+                    emitter.send(event.toSse());
+                } catch (IOException | IllegalStateException e) {
+                    // The client went away; the container completes the request
+                    close();
+                    return;
+                }
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+    }
+
+    /**
+     * @param name SSE event type, or null for a heartbeat comment
+     * @param data pre-rendered JSON, shared by every subscriber
+     */
+    private record StreamEvent(long sequence, String id, String name, String data) {
+
+        static final StreamEvent HEARTBEAT = new StreamEvent(-1, null, null, null);
+
+        static StreamEvent resync(long sequence, String id) {
+            return new StreamEvent(sequence, id, RESYNC, "{}");
+        }
+
+        SseEmitter.SseEventBuilder toSse() {
+            if (name == null) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            return SseEmitter.event().id(id).name(name).data(data);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.muralia.service.image;
+
+import java.util.Optional;
+
+/**
+ * Image formats accepted for upload, recognised by their magic bytes rather than the declared content type.
+ */
+public enum ImageFormat {
+
+    JPEG("image/jpeg"),
+    PNG("image/png"),
+    GIF("image/gif"),
+    WEBP("image/webp");
+
+    /**
+     * Number of leading bytes {@link #sniff(byte[], int)} needs to recognise every format.
+     */
+    public static final int SNIFF_LENGTH = 12;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] GIF87A = {'G', 'I', 'F', '8', '7', 'a'};
+    private static final byte[] GIF89A = {'G', 'I', 'F', '8', '9', 'a'};
+    private static final byte[] RIFF = {'R', 'I', 'F', 'F'};
+    private static final byte[] WEBP_FOURCC = {'W', 'E', 'B', 'P'};
+
+    private final String mimeType;
+
+    ImageFormat(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public static Optional<ImageFormat> sniff(byte[] head, int length) {
+        if (length >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+            return Optional.of(JPEG);
+        }
+        if (length >= PNG_SIGNATURE.length && startsWith(head, 0, PNG_SIGNATURE)) {
+            return Optional.of(PNG);
+        }
+        if (length >= GIF89A.length && (startsWith(head, 0, GIF87A) || startsWith(head, 0, GIF89A))) {
+            return Optional.of(GIF);
+        }
+        if (length >= SNIFF_LENGTH && startsWith(head, 0, RIFF) && startsWith(head, 8, WEBP_FOURCC)) {
+            return Optional.of(WEBP);
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] head, int offset, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (head[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,194 @@
+package com.muralia.service.image;
+
+import com.muralia.exception.InvalidFileTypeException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * Reads image dimensions and EXIF orientation from the encoded header only, without decoding pixels.
+ *
+ * JPEG, PNG and GIF go through the matching {@link ImageReader}, which stops after the header when
+ * asked for {@code getWidth(0)} / {@code getHeight(0)}. WebP has no reader in the JDK, so its RIFF
+ * header is parsed directly. The JPEG EXIF orientation is found by walking the APPn segments up to
+ * the first frame or scan marker.
+ *
+ * A header that can't be parsed, whether the reader reports it or trips over it with a runtime
+ * exception, is rejected as an invalid image. A missing or unparsable orientation is taken as 1.
+ */
+@Slf4j
+@Component
+public class ImageHeaderReader {
+
+    private static final int WEBP_HEADER_LENGTH = 30;
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    /**
+     * @return the dimensions, or empty when the content is not an image format we can read
+     * @throws InvalidFileTypeException when the content is a recognised format with a corrupt header
+     */
+    public Optional<ImageDimensions> read(InputStreamSource source) throws IOException {
+        byte[] head;
+        try (InputStream in = source.getInputStream()) {
+            head = in.readNBytes(WEBP_HEADER_LENGTH);
+        }
+
+        Optional<ImageFormat> format = ImageFormat.sniff(head, head.length);
+        if (format.isPresent() && format.get() == ImageFormat.WEBP) {
+            return Optional.of(readWebp(head));
+        }
+
+        Optional<ImageDimensions> dimensions = readWithImageReader(source, format.map(ImageFormat::getMimeType).orElse(null));
+        if (dimensions.isPresent() && format.isPresent() && format.get() == ImageFormat.JPEG) {
+            int orientation = readJpegOrientation(source);
+            return Optional.of(new ImageDimensions(dimensions.get().width(), dimensions.get().height(), orientation));
+        }
+        return dimensions;
+    }
+
+    /**
+     * @return the EXIF orientation of a JPEG, 1 for other formats or when it has none
+     */
+    public int readOrientation(InputStreamSource source) throws IOException {
+        byte[] head;
+        try (InputStream in = source.getInputStream()) {
+            head = in.readNBytes(ImageFormat.SNIFF_LENGTH);
+        }
+        return ImageFormat.sniff(head, head.length).orElse(null) == ImageFormat.JPEG ? readJpegOrientation(source) : 1;
+    }
+
+    private static Optional<ImageDimensions> readWithImageReader(InputStreamSource source, String mimeType) throws IOException {
+        try (InputStream in = source.getInputStream();
+             ImageInputStream images = new MemoryCacheImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(images);
+            if (!readers.hasNext()) {
+                return Optional.empty();
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(images, true, true);
+                return Optional.of(new ImageDimensions(reader.getWidth(0), reader.getHeight(0), 1));
+            } catch (IIOException | RuntimeException e) {
+                // Plugins report truncated or inconsistent headers with IndexOutOfBounds and the like too
+                log.debug("Unreadable image header: {}", e.toString());
+                throw InvalidFileTypeException.corruptHeader(mimeType);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static ImageDimensions readWebp(byte[] head) {
+        if (head.length < WEBP_HEADER_LENGTH) {
+            throw InvalidFileTypeException.corruptHeader(ImageFormat.WEBP.getMimeType());
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(head).order(ByteOrder.LITTLE_ENDIAN);
+        String chunk = new String(head, 12, 4, StandardCharsets.US_ASCII);
+        switch (chunk) {
+            case "VP8 " -> {
+                // Lossy: key frame start code, then 14-bit width and height
+                if ((head[23] & 0xFF) != 0x9D || (head[24] & 0xFF) != 0x01 || (head[25] & 0xFF) != 0x2A) {
+                    throw InvalidFileTypeException.corruptHeader(ImageFormat.WEBP.getMimeType());
+                }
+                return new ImageDimensions(buffer.getShort(26) & 0x3FFF, buffer.getShort(28) & 0x3FFF, 1);
+            }
+            case "VP8L" -> {
+                // Lossless: signature byte, then width - 1 and height - 1 packed in 14 bits each
+                if ((head[20] & 0xFF) != 0x2F) {
+                    throw InvalidFileTypeException.corruptHeader(ImageFormat.WEBP.getMimeType());
+                }
+                int bits = buffer.getInt(21);
+                return new ImageDimensions((bits & 0x3FFF) + 1, ((bits >>> 14) & 0x3FFF) + 1, 1);
+            }
+            case "VP8X" -> {
+                // Extended: 24-bit canvas width - 1 and height - 1
+                return new ImageDimensions(uint24(head, 24) + 1, uint24(head, 27) + 1, 1);
+            }
+            default -> throw InvalidFileTypeException.corruptHeader(ImageFormat.WEBP.getMimeType());
+        }
+    }
+
+    private static int uint24(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8 | (bytes[offset + 2] & 0xFF) << 16;
+    }
+
+    /**
+     * Walks the JPEG segments until the EXIF APP1 segment, skipping everything else without reading it.
+     */
+    private static int readJpegOrientation(InputStreamSource source) throws IOException {
+        try (DataInputStream in = new DataInputStream(source.getInputStream())) {
+            in.skipNBytes(2); // SOI
+
+            while (true) {
+                int marker = in.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || (marker >= 0xFFC0 && marker <= 0xFFCF
+                        && marker != 0xFFC4 && marker != 0xFFC8 && marker != 0xFFCC)) {
+                    // Not a marker, start of scan, or a frame header: no EXIF before the pixels
+                    return 1;
+                }
+
+                int length = in.readUnsignedShort() - 2;
+                if (marker == 0xFFE1 && length > 14) {
+                    byte[] segment = in.readNBytes(length);
+                    if (segment.length == length && isExif(segment)) {
+                        return readTiffOrientation(Arrays.copyOfRange(segment, 6, segment.length));
+                    }
+                } else {
+                    in.skipNBytes(length);
+                }
+            }
+        } catch (EOFException | RuntimeException e) {
+            // Truncated, or a segment length that makes no sense: the orientation is best effort
+            return 1;
+        }
+    }
+
+    private static boolean isExif(byte[] segment) {
+        return segment[0] == 'E' && segment[1] == 'x' && segment[2] == 'i' && segment[3] == 'f'
+                && segment[4] == 0 && segment[5] == 0;
+    }
+
+    private static int readTiffOrientation(byte[] tiff) {
+        if (tiff.length < 8) {
+            return 1;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(tiff)
+                .order(tiff[0] == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = buffer.getInt(4);
+        if (ifd < 8 || ifd + 2 > tiff.length) {
+            return 1;
+        }
+
+        int entries = buffer.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > tiff.length) {
+                break;
+            }
+            if ((buffer.getShort(entry) & 0xFFFF) == ORIENTATION_TAG) {
+                int orientation = buffer.getShort(entry + 8) & 0xFFFF;
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+}
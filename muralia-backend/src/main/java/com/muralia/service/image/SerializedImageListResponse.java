@@ -0,0 +1,21 @@
+package com.muralia.service.image;
+
+import com.muralia.api.model.ImageListResponse;
+
+/**
+ * A gallery page already rendered to UTF-8 JSON. Typed as an {@link ImageListResponse} so the
+ * controller keeps its generated signature; the bytes are written as they are by
+ * {@link com.muralia.config.SerializedJsonHttpMessageConverter}, the inherited fields stay empty.
+ */
+public class SerializedImageListResponse extends ImageListResponse {
+
+    private final byte[] json;
+
+    public SerializedImageListResponse(byte[] json) {
+        this.json = json;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+}
@@ -8,9 +8,9 @@ import com.muralia.entity.CustomerEntity;
 import com.muralia.repository.CustomerRepository;
 import com.muralia.service.AuthenticationService;
 import com.muralia.service.JwtService;
+import com.muralia.service.auth.PasswordHasher;
 import com.muralia.service.mapper.CustomerMapper;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,21 +20,24 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
     private final CustomerRepository customerRepository;
     private final CustomerMapper customerMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtService jwtService;
 
     public AuthenticationServiceImpl(CustomerRepository customerRepository,
                                      CustomerMapper customerMapper,
-                                     PasswordEncoder passwordEncoder,
+                                     PasswordHasher passwordHasher,
                                      JwtService jwtService) {
         this.customerRepository = customerRepository;
         this.customerMapper = customerMapper;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
         this.jwtService = jwtService;
     }
 
+    /**
+     * Not transactional: no connection is held while the password is hashed. A registration racing
+     * another one for the same email or username is still stopped by the unique constraints.
+     */
     @Override
-    @Transactional
     public AuthResponse register(RegisterRequest registerRequest) {
         log.info("Attempting to register new customer with email: {}", registerRequest.getEmail());
 
@@ -48,11 +51,14 @@ public class AuthenticationServiceImpl implements AuthenticationService {
             throw new RuntimeException("Username already exists"); // TODO: Create proper exception
         }
 
+        // Hash on the bounded hashing pool, between the lookups and the insert
+        String encodedPassword = passwordHasher.encode(registerRequest.getPassword());
+
         // Create new customer
         CustomerEntity customer = CustomerEntity.builder()
                 .email(registerRequest.getEmail())
                 .username(registerRequest.getUsername())
-                .password(passwordEncoder.encode(registerRequest.getPassword()))
+                .password(encodedPassword)
                 .firstName(registerRequest.getFirstName())
                 .lastName(registerRequest.getLastName())
                 .build();
@@ -73,8 +79,11 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         return response;
     }
 
+    /**
+     * Not transactional: the customer is loaded in the repository's own short transaction and the
+     * connection is back in the pool before the password is checked.
+     */
     @Override
-    @Transactional(readOnly = true)
     public AuthResponse login(LoginRequest loginRequest) {
         log.info("Login attempt for email: {}", loginRequest.getEmail());
 
@@ -86,7 +95,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
                 });
 
         // Verify password
-        if (!passwordEncoder.matches(loginRequest.getPassword(), customer.getPassword())) {
+        if (!passwordHasher.matches(loginRequest.getPassword(), customer.getPassword())) {
             log.warn("Login failed: Invalid password for - {}", loginRequest.getEmail());
             throw new RuntimeException("Invalid credentials"); // TODO: Create proper exception
         }
@@ -0,0 +1,59 @@
+package com.muralia.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.muralia.event.CustomerChangedEvent;
+import com.muralia.repository.CustomerRepository;
+import com.muralia.service.CustomerPrincipalResolver;
+import com.muralia.service.auth.AuthenticatedCustomer;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Looks the token's customer up in the database, remembering the result for a bounded time so that
+ * only the first request of a session pays for it. Entries are dropped as soon as the customer changes;
+ * changes that bypass the entity (bulk or cascaded deletes) show up within the TTL.
+ */
+@Component
+@ConditionalOnProperty(name = "muralia.security.principal.mode", havingValue = "cache")
+public class CachedCustomerPrincipalResolver implements CustomerPrincipalResolver {
+
+    private final CustomerRepository customerRepository;
+    private final Cache<String, AuthenticatedCustomer> customersByEmail;
+
+    public CachedCustomerPrincipalResolver(CustomerRepository customerRepository,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${muralia.security.principal.cache.max-size:10000}") long maxSize,
+                                           @Value("${muralia.security.principal.cache.ttl:PT5M}") Duration ttl) {
+        this.customerRepository = customerRepository;
+        this.customersByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, customersByEmail, "security.principals");
+    }
+
+    @Override
+    public Optional<AuthenticatedCustomer> resolve(Claims claims) {
+        // Unknown customers are not cached
+        return Optional.ofNullable(customersByEmail.get(claims.getSubject(),
+                email -> customerRepository.findByEmail(email).map(AuthenticatedCustomer::of).orElse(null)));
+    }
+
+    /**
+     * Matches by id, so an entry cached under a since-changed email goes as well.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        customersByEmail.asMap().values().removeIf(customer -> customer.id().equals(event.customerId()));
+    }
+}
@@ -0,0 +1,27 @@
+package com.muralia.service.impl;
+
+import com.muralia.service.CustomerPrincipalResolver;
+import com.muralia.service.auth.AuthenticatedCustomer;
+import io.jsonwebtoken.Claims;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Builds the principal from the token alone, without touching the database. The signed claims are
+ * trusted until the token expires, so a customer deleted meanwhile stays authenticated until then.
+ */
+@Component
+@ConditionalOnProperty(name = "muralia.security.principal.mode", havingValue = "claims", matchIfMissing = true)
+public class ClaimsCustomerPrincipalResolver implements CustomerPrincipalResolver {
+
+    @Override
+    public Optional<AuthenticatedCustomer> resolve(Claims claims) {
+        // Small numbers come back from the JSON payload as Integer
+        if (!(claims.get("userId") instanceof Number userId) || claims.getSubject() == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new AuthenticatedCustomer(userId.longValue(), claims.get("username", String.class), claims.getSubject()));
+    }
+}
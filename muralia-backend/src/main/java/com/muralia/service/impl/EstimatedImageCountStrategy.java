@@ -0,0 +1,38 @@
+package com.muralia.service.impl;
+
+import com.muralia.repository.ImageRepository;
+import com.muralia.service.ImageCountStrategy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads the planner estimate from {@code pg_class.reltuples}, kept current by autovacuum/ANALYZE.
+ * Falls back to an exact count while the table has never been analyzed.
+ */
+@Component
+@ConditionalOnProperty(name = "muralia.images.total-count.mode", havingValue = "estimate")
+public class EstimatedImageCountStrategy implements ImageCountStrategy {
+
+    private static final String ESTIMATE_SQL =
+            "SELECT reltuples::bigint FROM pg_class WHERE oid = 'images'::regclass";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ImageRepository imageRepository;
+
+    public EstimatedImageCountStrategy(JdbcTemplate jdbcTemplate, ImageRepository imageRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.imageRepository = imageRepository;
+    }
+
+    @Override
+    public long countImages() {
+        Long estimate = jdbcTemplate.queryForObject(ESTIMATE_SQL, Long.class);
+
+        // reltuples is -1 (PostgreSQL 14+) or 0 until the first ANALYZE
+        if (estimate == null || estimate <= 0) {
+            return imageRepository.count();
+        }
+        return estimate;
+    }
+}
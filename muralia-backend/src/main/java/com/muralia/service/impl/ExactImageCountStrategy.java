@@ -0,0 +1,25 @@
+package com.muralia.service.impl;
+
+import com.muralia.repository.ImageRepository;
+import com.muralia.service.ImageCountStrategy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs {@code SELECT count(*)} on every call. Always correct, but scans the whole table.
+ */
+@Component
+@ConditionalOnProperty(name = "muralia.images.total-count.mode", havingValue = "exact")
+public class ExactImageCountStrategy implements ImageCountStrategy {
+
+    private final ImageRepository imageRepository;
+
+    public ExactImageCountStrategy(ImageRepository imageRepository) {
+        this.imageRepository = imageRepository;
+    }
+
+    @Override
+    public long countImages() {
+        return imageRepository.count();
+    }
+}
@@ -1,27 +1,57 @@
 package com.muralia.service.impl;
 
+import com.muralia.api.model.BatchUploadResponse;
+import com.muralia.api.model.BatchUploadResult;
 import com.muralia.api.model.Image;
 import com.muralia.api.model.ImageListResponse;
-import com.muralia.entity.CustomerEntity;
 import com.muralia.entity.ImageEntity;
+import com.muralia.entity.id.UuidV7;
+import com.muralia.event.ImageDeletedEvent;
+import com.muralia.event.ImageUploadedEvent;
 import com.muralia.exception.CustomerNotFoundException;
 import com.muralia.exception.EmptyFileException;
+import com.muralia.exception.FileTooLargeException;
 import com.muralia.exception.ImageNotFoundException;
+import com.muralia.exception.InvalidBatchSizeException;
 import com.muralia.exception.InvalidFileTypeException;
 import com.muralia.repository.CustomerRepository;
 import com.muralia.repository.ImageRepository;
+import com.muralia.repository.ThumbnailRepository;
+import com.muralia.repository.projection.ImageFileMetadata;
+import com.muralia.repository.projection.ImageMetadata;
+import com.muralia.repository.projection.ThumbnailMetadata;
+import com.muralia.service.ImageCountStrategy;
 import com.muralia.service.ImageService;
+import com.muralia.service.auth.AuthenticatedCustomer;
+import com.muralia.service.auth.CurrentCustomer;
+import com.muralia.service.image.ImageContentCache;
+import com.muralia.service.image.ImageDimensions;
+import com.muralia.service.image.ImageHeaderReader;
 import com.muralia.service.mapper.ImageMapper;
-import org.springframework.data.domain.Page;
+import com.muralia.service.pagination.ImageCursor;
+import com.muralia.service.thumbnail.ThumbnailPipeline;
+import com.muralia.service.upload.SpooledUpload;
+import com.muralia.service.upload.UploadSpooler;
+import com.muralia.storage.BlobStoreRegistry;
+import com.muralia.storage.ContentAddressedStorage;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -29,102 +59,259 @@ import java.util.stream.Collectors;
 public class ImageServiceImpl implements ImageService {
 
     private final ImageRepository imageRepository;
+    private final BlobStoreRegistry blobStoreRegistry;
+    private final ContentAddressedStorage contentAddressedStorage;
+    private final ThumbnailRepository thumbnailRepository;
+    private final ThumbnailPipeline thumbnailPipeline;
+    private final ImageHeaderReader imageHeaderReader;
+    private final UploadSpooler uploadSpooler;
     private final CustomerRepository customerRepository;
     private final ImageMapper imageMapper;
-    // TODO: Add FileStorageService for file upload/deletion
+    private final ImageCountStrategy imageCountStrategy;
+    private final ImageContentCache imageContentCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxBatchFiles;
 
     public ImageServiceImpl(ImageRepository imageRepository,
+                            BlobStoreRegistry blobStoreRegistry,
+                            ContentAddressedStorage contentAddressedStorage,
+                            ThumbnailRepository thumbnailRepository,
+                            ThumbnailPipeline thumbnailPipeline,
+                            ImageHeaderReader imageHeaderReader,
+                            UploadSpooler uploadSpooler,
                             CustomerRepository customerRepository,
-                            ImageMapper imageMapper) {
+                            ImageMapper imageMapper,
+                            ImageCountStrategy imageCountStrategy,
+                            ImageContentCache imageContentCache,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${muralia.uploads.batch.max-files:50}") int maxBatchFiles) {
         this.imageRepository = imageRepository;
+        this.blobStoreRegistry = blobStoreRegistry;
+        this.contentAddressedStorage = contentAddressedStorage;
+        this.thumbnailRepository = thumbnailRepository;
+        this.thumbnailPipeline = thumbnailPipeline;
+        this.imageHeaderReader = imageHeaderReader;
+        this.uploadSpooler = uploadSpooler;
         this.customerRepository = customerRepository;
         this.imageMapper = imageMapper;
+        this.imageCountStrategy = imageCountStrategy;
+        this.imageContentCache = imageContentCache;
+        this.eventPublisher = eventPublisher;
+        this.maxBatchFiles = maxBatchFiles;
     }
 
     @Override
     @Transactional
+    @Timed(value = "muralia.images.upload", description = "Single image uploads, including storage and thumbnail queuing")
     public Image uploadImage(MultipartFile file, String title, String description) {
-        // Get current authenticated customer from SecurityContext
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-
-        if (authentication == null || !authentication.isAuthenticated() || !(authentication.getPrincipal() instanceof CustomerEntity customer)) {
-            throw new CustomerNotFoundException("User not authenticated");
-        }
+        AuthenticatedCustomer customer = CurrentCustomer.get();
 
         // Validate file
         if (file.isEmpty()) {
             throw new EmptyFileException();
         }
 
-        // Validate file type (only images)
-        String contentType = file.getContentType();
-        if (contentType == null || !contentType.startsWith("image/")) {
-            throw new InvalidFileTypeException(contentType);
+        // Validate type (by magic bytes), size and hash in a single pass over the upload
+        try (SpooledUpload upload = spool(file)) {
+            return storeImage(customer, upload, null, file.getOriginalFilename(), title, description);
         }
+    }
 
-        // TODO: Validate file size (already configured in application.yml to 10MB max)
+    /**
+     * Stores an upload validated beforehand, whose content may already have been copied to the primary
+     * store by {@link ContentAddressedStorage#write}.
+     */
+    @Override
+    @Transactional
+    @Timed(value = "muralia.images.upload", description = "Single image uploads, including storage and thumbnail queuing")
+    public Image uploadImage(SpooledUpload upload, String writtenKey, String fileName, String title, String description) {
+        return storeImage(CurrentCustomer.get(), upload, writtenKey, fileName, title, description);
+    }
 
+    /**
+     * Validates every file first and reports the ones that fail, then stores the rest together: blob
+     * references, one statement queuing all thumbnails, and the image rows, which Hibernate sends as a
+     * single JDBC batch at commit.
+     */
+    @Override
+    @Transactional
+    @Timed(value = "muralia.images.upload.batch", description = "Batch image uploads")
+    public BatchUploadResponse uploadImages(List<MultipartFile> files, String title, String description) {
+        AuthenticatedCustomer customer = CurrentCustomer.get();
+        if (files == null || files.isEmpty() || files.size() > maxBatchFiles) {
+            throw new InvalidBatchSizeException(files == null ? 0 : files.size(), maxBatchFiles);
+        }
+
+        List<BatchUploadResult> results = new ArrayList<>(files.size());
+        Map<Integer, SpooledUpload> accepted = new LinkedHashMap<>();
+        List<Integer> createdPositions = new ArrayList<>(files.size());
         try {
-            // Read image bytes
-            byte[] imageBytes = file.getBytes();
-
-            // TODO: Extract image dimensions (width, height) using ImageIO
-            // BufferedImage bufferedImage = ImageIO.read(new ByteArrayInputStream(imageBytes));
-            // Integer width = bufferedImage.getWidth();
-            // Integer height = bufferedImage.getHeight();
-
-            // TODO: Generate thumbnail
-            // byte[] thumbnailBytes = generateThumbnail(imageBytes);
-
-            // Create entity (URL will be generated after we have the ID)
-            ImageEntity imageEntity = ImageEntity.builder()
-                    .url("") // Will be updated after save
-                    .thumbnailUrl(null) // Will be updated after save if thumbnail exists
-                    .title(title)
-                    .description(description)
-                    .fileName(file.getOriginalFilename())
-                    .fileSize(file.getSize())
-                    .mimeType(contentType)
-                    .width(null) // TODO: Extract actual dimensions
-                    .height(null) // TODO: Extract actual dimensions
-                    .imageData(imageBytes)
-                    .thumbnailData(null) // TODO: Generate thumbnail
-                    .customer(customer)
-                    .build();
-
-            imageEntity = imageRepository.save(imageEntity);
-
-            // Generate URLs pointing to file serving endpoints
-            String baseUrl = "http://localhost:8080"; // TODO: Get from configuration
-            imageEntity.setUrl(baseUrl + "/api/images/" + imageEntity.getId() + "/file");
-            if (imageEntity.getThumbnailData() != null) {
-                imageEntity.setThumbnailUrl(baseUrl + "/api/images/" + imageEntity.getId() + "/thumbnail");
+            for (MultipartFile file : files) {
+                BatchUploadResult result = new BatchUploadResult();
+                result.setFileName(file.getOriginalFilename());
+                results.add(result);
+                try {
+                    if (file.isEmpty()) {
+                        throw new EmptyFileException();
+                    }
+                    accepted.put(results.size() - 1, spool(file));
+                } catch (EmptyFileException | InvalidFileTypeException | FileTooLargeException e) {
+                    result.setStatus(BatchUploadResult.StatusEnum.REJECTED);
+                    result.setError(e.getMessage());
+                }
             }
 
-            imageEntity = imageRepository.save(imageEntity);
+            List<ImageEntity> images = new ArrayList<>(accepted.size());
+            for (Map.Entry<Integer, SpooledUpload> entry : accepted.entrySet()) {
+                BatchUploadResult result = results.get(entry.getKey());
+                try {
+                    images.add(prepareImage(customer, entry.getValue(), null, result.getFileName(), title, description));
+                    createdPositions.add(entry.getKey());
+                } catch (InvalidFileTypeException e) {
+                    // A recognised format with a corrupt header, rejected before anything was stored for it
+                    result.setStatus(BatchUploadResult.StatusEnum.REJECTED);
+                    result.setError(e.getMessage());
+                }
+            }
+            List<Image> created = persist(images, customer);
 
-            return imageMapper.toDto(imageEntity);
+            int index = 0;
+            for (Integer position : createdPositions) {
+                BatchUploadResult result = results.get(position);
+                result.setStatus(BatchUploadResult.StatusEnum.CREATED);
+                result.setImage(created.get(index++));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to upload images", e);
+        } finally {
+            accepted.values().forEach(SpooledUpload::close);
+        }
+
+        BatchUploadResponse response = new BatchUploadResponse();
+        response.setResults(results);
+        response.setCreated(createdPositions.size());
+        response.setRejected(results.size() - createdPositions.size());
+        return response;
+    }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to upload image: " + e.getMessage()); // TODO: Create proper exception
+    private Image storeImage(AuthenticatedCustomer customer, SpooledUpload upload, String writtenKey, String fileName, String title, String description) {
+        try {
+            ImageEntity imageEntity = prepareImage(customer, upload, writtenKey, fileName, title, description);
+            return persist(List.of(imageEntity), customer).get(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to upload image " + fileName, e);
         }
     }
 
+    /**
+     * Stores the content, unless it is stored already, and builds the image row for it.
+     *
+     * @throws InvalidFileTypeException when the header is corrupt, before any content is stored
+     */
+    private ImageEntity prepareImage(AuthenticatedCustomer customer, SpooledUpload upload, String writtenKey, String fileName, String title, String description) throws IOException {
+        // Dimensions as displayed, read from the header without decoding pixels
+        Optional<ImageDimensions> dimensions = imageHeaderReader.read(upload);
+
+        // Store the content only if it isn't stored yet
+        String contentHash = upload.contentHash();
+        contentAddressedStorage.acquire(contentHash, upload.size(), upload, writtenKey);
+
+        // URLs point to file serving endpoints; thumbnails are generated after commit and the
+        // endpoint serves the original until then
+        UUID id = UuidV7.generate();
+        String baseUrl = "http://localhost:8080"; // TODO: Get from configuration
+
+        return ImageEntity.builder()
+                .id(id)
+                .url(baseUrl + "/api/images/" + id + "/file")
+                .thumbnailUrl(baseUrl + "/api/images/" + id + "/thumbnail")
+                .title(title)
+                .description(description)
+                .fileName(fileName)
+                .fileSize(upload.size())
+                .mimeType(upload.format().getMimeType())
+                .contentHash(contentHash)
+                .width(dimensions.map(ImageDimensions::displayWidth).orElse(null))
+                .height(dimensions.map(ImageDimensions::displayHeight).orElse(null))
+                // A reference is enough to set the foreign key, the customer row is not loaded
+                .customer(customerRepository.getReferenceById(customer.id()))
+                .build();
+    }
+
+    /**
+     * Queues the thumbnails and saves the rows. The thumbnail statement goes first: as a native query it
+     * would flush, and so break up, pending image inserts.
+     */
+    private List<Image> persist(List<ImageEntity> images, AuthenticatedCustomer customer) {
+        thumbnailPipeline.request(images.stream().map(ImageEntity::getContentHash).toList());
+
+        List<ImageEntity> saved = imageRepository.saveAll(images);
+        saved.forEach(image -> eventPublisher.publishEvent(new ImageUploadedEvent(image.getId(), image.getContentHash())));
+
+        return saved.stream()
+                .map(image -> imageMapper.toDto(image, customer.username()))
+                .collect(Collectors.toList());
+    }
+
     @Override
     @Transactional(readOnly = true)
-    public ImageListResponse getLatestImages(Integer limit, Integer offset) {
+    @Timed(value = "muralia.images.list", description = "Gallery page queries and mapping")
+    public ImageListResponse getLatestImages(Integer limit, Integer offset, String cursor) {
+        if (cursor != null && !cursor.isBlank()) {
+            // Keyset mode: seek past the cursor position, no OFFSET scan and no count query
+            ImageCursor position = ImageCursor.decode(cursor);
+            Slice<ImageMetadata> slice = imageRepository.findLatestImageMetadataBefore(
+                    position.uploadedAt(), position.id(), PageRequest.of(0, limit));
+
+            return toListResponse(slice, limit);
+        }
+
         Pageable pageable = PageRequest.of(offset / limit, limit);
-        Page<ImageEntity> page = imageRepository.findLatestImages(pageable);
+        Slice<ImageMetadata> page = imageRepository.findLatestImageMetadata(pageable);
 
-        List<Image> images = page.getContent().stream()
+        ImageListResponse response = toListResponse(page, limit);
+        response.setTotal((int) imageCountStrategy.countImages());
+        response.setOffset(offset);
+
+        return response;
+    }
+
+    /**
+     * Keyset pages only, with no total. Whether the customer exists is checked only when the page comes
+     * back empty, so a profile with images costs a single index range scan.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @Timed(value = "muralia.images.list.customer", description = "Per-customer page queries and mapping")
+    public ImageListResponse getCustomerImages(Long customerId, Integer limit, String cursor) {
+        Slice<ImageMetadata> slice;
+        if (cursor != null && !cursor.isBlank()) {
+            ImageCursor position = ImageCursor.decode(cursor);
+            slice = imageRepository.findCustomerImageMetadataBefore(
+                    customerId, position.uploadedAt(), position.id(), PageRequest.of(0, limit));
+        } else {
+            slice = imageRepository.findCustomerImageMetadata(customerId, PageRequest.of(0, limit));
+        }
+
+        if (!slice.hasContent() && !customerRepository.existsById(customerId)) {
+            throw new CustomerNotFoundException("Customer not found: " + customerId);
+        }
+        return toListResponse(slice, limit);
+    }
+
+    private ImageListResponse toListResponse(Slice<ImageMetadata> slice, Integer limit) {
+        List<Image> images = slice.getContent().stream()
                 .map(imageMapper::toDto)
                 .collect(Collectors.toList());
 
         ImageListResponse response = new ImageListResponse();
         response.setImages(images);
-        response.setTotal((int) page.getTotalElements());
         response.setLimit(limit);
-        response.setOffset(offset);
+
+        if (slice.hasNext() && !images.isEmpty()) {
+            ImageMetadata last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            response.setNextCursor(new ImageCursor(last.uploadedAt(), last.id()).encode());
+        }
 
         return response;
     }
@@ -132,46 +319,70 @@ public class ImageServiceImpl implements ImageService {
     @Override
     @Transactional(readOnly = true)
     public Image getImageById(UUID imageId) {
-        ImageEntity imageEntity = imageRepository.findById(imageId)
+        ImageMetadata metadata = imageRepository.findMetadataById(imageId)
                 .orElseThrow(() -> new ImageNotFoundException(imageId));
 
-        return imageMapper.toDto(imageEntity);
+        return imageMapper.toDto(metadata);
     }
 
     @Override
     @Transactional
     public void deleteImage(UUID imageId) {
-        // Get current authenticated customer from SecurityContext
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-
-        if (authentication == null || !authentication.isAuthenticated() || !(authentication.getPrincipal() instanceof CustomerEntity currentCustomer)) {
-            throw new CustomerNotFoundException("User not authenticated");
-        }
+        AuthenticatedCustomer currentCustomer = CurrentCustomer.get();
 
         ImageEntity imageEntity = imageRepository.findById(imageId)
                 .orElseThrow(() -> new ImageNotFoundException(imageId));
 
         // Check if current customer is the owner
-        if (!imageEntity.getCustomer().getId().equals(currentCustomer.getId())) {
+        if (!imageEntity.getCustomer().getId().equals(currentCustomer.id())) {
             throw new RuntimeException("Not authorized to delete this image"); // TODO: Create ForbiddenException
         }
 
+        // Flush the row removal first so the last reference can drop the blob row it points at
         imageRepository.delete(imageEntity);
+        imageRepository.flush();
+        try {
+            contentAddressedStorage.release(imageEntity.getContentHash());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete image content " + imageId, e);
+        }
+        eventPublisher.publishEvent(new ImageDeletedEvent(imageId, imageEntity.getContentHash()));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public byte[] getImageFileBytes(UUID imageId) {
-        ImageEntity imageEntity = imageRepository.findById(imageId)
+    @Timed(value = "muralia.images.file.metadata", description = "Metadata lookups of the file and thumbnail endpoints")
+    public ImageFileMetadata getImageFileMetadata(UUID imageId) {
+        return imageRepository.findFileMetadataById(imageId)
                 .orElseThrow(() -> new ImageNotFoundException(imageId));
+    }
 
-        return imageEntity.getImageData();
+    /**
+     * Returns the image content from the in-memory cache, or a lazily opened resource from the backend
+     * it was stored in. Deliberately not transactional: streams opened from it manage their own resources.
+     */
+    @Override
+    public Resource getImageContent(ImageFileMetadata file) {
+        Resource stored = blobStoreRegistry.get(file.storageBackend()).open(file.storageKey(), file.fileSize());
+        return imageContentCache.get(file.contentHash(), stored, file.fileSize());
     }
 
-    public String getImageMimeType(UUID imageId) {
-        ImageEntity imageEntity = imageRepository.findById(imageId)
-                .orElseThrow(() -> new ImageNotFoundException(imageId));
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ThumbnailMetadata> findImageThumbnail(UUID imageId, Integer size) {
+        return thumbnailRepository.findReadyThumbnail(imageId, thumbnailPipeline.resolveSize(size));
+    }
 
-        return imageEntity.getMimeType();
+    @Override
+    public Resource getThumbnailContent(ThumbnailMetadata thumbnail) {
+        return blobStoreRegistry.get(thumbnail.storageBackend()).open(thumbnail.storageKey(), thumbnail.byteSize());
+    }
+
+    private SpooledUpload spool(MultipartFile file) {
+        try {
+            return uploadSpooler.spool(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read upload " + file.getOriginalFilename(), e);
+        }
     }
 }
@@ -0,0 +1,58 @@
+package com.muralia.service.impl;
+
+import com.muralia.event.ImageDeletedEvent;
+import com.muralia.event.ImageUploadedEvent;
+import com.muralia.repository.ImageRepository;
+import com.muralia.service.ImageCountStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the image count in memory, adjusted by committed uploads and deletes, and periodically
+ * reconciled against the database to absorb changes made by other instances or outside the service.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "muralia.images.total-count.mode", havingValue = "counter", matchIfMissing = true)
+public class InMemoryImageCountStrategy implements ImageCountStrategy {
+
+    private final ImageRepository imageRepository;
+    private final AtomicLong count = new AtomicLong();
+
+    public InMemoryImageCountStrategy(ImageRepository imageRepository) {
+        this.imageRepository = imageRepository;
+    }
+
+    @Override
+    public long countImages() {
+        return Math.max(count.get(), 0);
+    }
+
+    @TransactionalEventListener
+    public void onImageUploaded(ImageUploadedEvent event) {
+        count.incrementAndGet();
+    }
+
+    @TransactionalEventListener
+    public void onImageDeleted(ImageDeletedEvent event) {
+        count.decrementAndGet();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${muralia.images.total-count.reconcile-interval:PT5M}",
+            initialDelayString = "${muralia.images.total-count.reconcile-interval:PT5M}")
+    public void reconcile() {
+        long actual = imageRepository.count();
+        long previous = count.getAndSet(actual);
+        if (previous != actual) {
+            log.debug("Reconciled image count: {} -> {}", previous, actual);
+        }
+    }
+}
@@ -1,28 +1,63 @@
 package com.muralia.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.muralia.entity.CustomerEntity;
 import com.muralia.service.JwtService;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
-import java.util.function.Function;
-
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues and verifies HMAC-signed JWTs. The key and parser are built once; tokens that verified
+ * successfully are remembered by their SHA-256 until they expire, so a client reusing its token
+ * skips decoding and signature checks on every further request.
+ */
+@Slf4j
 @Service
 public class JwtServiceImpl implements JwtService {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
-
-    @Value("${jwt.expiration}")
-    private Long jwtExpiration;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final long jwtExpiration;
+    private final Cache<String, Claims> verifiedTokens;
+    private final MeterRegistry meterRegistry;
+
+    public JwtServiceImpl(MeterRegistry meterRegistry,
+                          @Value("${jwt.secret}") String jwtSecret,
+                          @Value("${jwt.expiration}") Long jwtExpiration,
+                          @Value("${jwt.verified-cache.max-size:10000}") long verifiedCacheSize) {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.jwtExpiration = jwtExpiration;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        this.meterRegistry = meterRegistry;
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified-tokens");
+    }
 
     @Override
     public String generateToken(CustomerEntity customer) {
@@ -43,45 +78,77 @@ public class JwtServiceImpl implements JwtService {
                 .subject(subject)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
+    /**
+     * Timed as {@code muralia.jwt.verification}, tagged with the result: cached, verified or rejected.
+     */
     @Override
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
-    }
-
-    @Override
-    public boolean validateToken(String token, CustomerEntity customer) {
-        final String username = extractUsername(token);
-        return (username.equals(customer.getEmail()) && !isTokenExpired(token));
-    }
-
-    @Override
-    public boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public Optional<Claims> verifyToken(String token) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String digest = sha256Hex(token);
+        Claims cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && isUnexpired(cached)) {
+            stop(sample, "cached");
+            return Optional.of(cached);
+        }
+
+        try {
+            // Rejects bad signatures and, through the exp claim, expired tokens
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            if (claims.getExpiration() != null) {
+                verifiedTokens.put(digest, claims);
+            }
+            stop(sample, "verified");
+            return Optional.of(claims);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected JWT: {}", e.getMessage());
+            stop(sample, "rejected");
+            return Optional.empty();
+        }
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private void stop(Timer.Sample sample, String result) {
+        sample.stop(Timer.builder("muralia.jwt.verification")
+                .description("Bearer token verification, including the verified-token cache lookup")
+                .tag("result", result)
+                .register(meterRegistry));
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    private static boolean isUnexpired(Claims claims) {
+        return claims.getExpiration().getTime() > System.currentTimeMillis();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private static String sha256Hex(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Keeps a verified token exactly as long as it is valid.
+     */
+    private static final class UntilTokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,357 @@
+package com.muralia.service.impl;
+
+import com.muralia.api.model.CreateUploadSessionRequest;
+import com.muralia.api.model.Image;
+import com.muralia.api.model.UploadSession;
+import com.muralia.entity.UploadSessionEntity;
+import com.muralia.exception.EmptyFileException;
+import com.muralia.exception.FileTooLargeException;
+import com.muralia.exception.InvalidFileTypeException;
+import com.muralia.exception.UploadConflictException;
+import com.muralia.exception.UploadSessionNotFoundException;
+import com.muralia.repository.CustomerRepository;
+import com.muralia.repository.UploadSessionRepository;
+import com.muralia.service.ImageService;
+import com.muralia.service.UploadSessionService;
+import com.muralia.service.auth.CurrentCustomer;
+import com.muralia.service.mapper.UploadSessionMapper;
+import com.muralia.service.upload.SpooledUpload;
+import com.muralia.service.upload.UploadSpooler;
+import com.muralia.storage.BlobStoreRegistry;
+import com.muralia.storage.ContentAddressedStorage;
+import com.muralia.storage.DatabaseBlobStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumable uploads: the client announces the file, sends it in chunks at explicit offsets and completes
+ * the session, at which point the assembled file goes through the same validation and persistence as a
+ * single-shot upload. Chunks are streamed straight from the request into a per-session part file, so
+ * neither the heap nor a request thread is tied up for longer than one chunk takes to arrive.
+ *
+ * Part files live on local disk and chunks of a session are serialised in memory, so a session must be
+ * served by the same instance throughout.
+ *
+ * With the {@code database} storage backend every read of a blob materialises the whole bytea on the
+ * heap, so sessions are then limited to {@code muralia.uploads.resumable.database-max-file-size}; large
+ * files need the {@code filesystem} backend.
+ */
+@Slf4j
+@Service
+public class UploadSessionServiceImpl implements UploadSessionService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String PART_SUFFIX = ".part";
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final CustomerRepository customerRepository;
+    private final UploadSessionMapper uploadSessionMapper;
+    private final UploadSpooler uploadSpooler;
+    private final ImageService imageService;
+    private final ContentAddressedStorage contentAddressedStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directory;
+    private final long maxFileSize;
+    private final Duration sessionTtl;
+    private final Set<UUID> busy = ConcurrentHashMap.newKeySet();
+
+    public UploadSessionServiceImpl(UploadSessionRepository uploadSessionRepository,
+                                    CustomerRepository customerRepository,
+                                    UploadSessionMapper uploadSessionMapper,
+                                    UploadSpooler uploadSpooler,
+                                    ImageService imageService,
+                                    ContentAddressedStorage contentAddressedStorage,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${muralia.uploads.resumable.directory:${java.io.tmpdir}/muralia-uploads}") Path directory,
+                                    BlobStoreRegistry blobStoreRegistry,
+                                    @Value("${muralia.uploads.resumable.max-file-size:200MB}") DataSize maxFileSize,
+                                    @Value("${muralia.uploads.resumable.database-max-file-size:10MB}") DataSize databaseMaxFileSize,
+                                    @Value("${muralia.uploads.resumable.session-ttl:PT24H}") Duration sessionTtl) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.customerRepository = customerRepository;
+        this.uploadSessionMapper = uploadSessionMapper;
+        this.uploadSpooler = uploadSpooler;
+        this.imageService = imageService;
+        this.contentAddressedStorage = contentAddressedStorage;
+        this.transactionTemplate = transactionTemplate;
+        this.directory = directory;
+        this.maxFileSize = DatabaseBlobStore.NAME.equals(blobStoreRegistry.primary().getName())
+                ? Math.min(maxFileSize.toBytes(), databaseMaxFileSize.toBytes())
+                : maxFileSize.toBytes();
+        this.sessionTtl = sessionTtl;
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create upload directory " + directory, e);
+        }
+    }
+
+    @Override
+    @Transactional
+    public UploadSession createSession(CreateUploadSessionRequest request) {
+        if (request.getFileSize() > maxFileSize) {
+            throw new FileTooLargeException(maxFileSize);
+        }
+
+        OffsetDateTime now = OffsetDateTime.now();
+        UploadSessionEntity session = UploadSessionEntity.builder()
+                .id(UUID.randomUUID())
+                .customer(customerRepository.getReferenceById(CurrentCustomer.get().id()))
+                .fileName(request.getFileName())
+                .fileSize(request.getFileSize())
+                .receivedBytes(0L)
+                .title(request.getTitle())
+                .description(request.getDescription())
+                .createdAt(now)
+                .expiresAt(now.plus(sessionTtl))
+                .build();
+
+        return uploadSessionMapper.toDto(uploadSessionRepository.save(session));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UploadSession getSession(UUID uploadId) {
+        return uploadSessionMapper.toDto(findOwnSession(uploadId));
+    }
+
+    /**
+     * Deliberately not transactional: the chunk may take a while to arrive and no connection is held
+     * meanwhile. Progress is recorded with a conditional update once the bytes are on disk.
+     */
+    @Override
+    public UploadSession appendChunk(UUID uploadId, long offset, InputStream chunk) {
+        if (!busy.add(uploadId)) {
+            throw new UploadConflictException("Another chunk of this upload is still being received.");
+        }
+
+        try {
+            // Read only once the upload is claimed, so the offset is checked against up-to-date progress
+            UploadSessionEntity session = findOwnSession(uploadId);
+            if (offset != session.getReceivedBytes()) {
+                throw new UploadConflictException("Chunk offset " + offset + " does not match the "
+                        + session.getReceivedBytes() + " bytes received so far.");
+            }
+
+            long written = 0;
+            IOException interrupted = null;
+            try (FileChannel channel = FileChannel.open(partFile(uploadId),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Drop bytes past the offset, left over from a chunk whose progress was never recorded
+                channel.truncate(offset);
+                channel.position(offset);
+
+                long remaining = session.getFileSize() - offset;
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                try {
+                    int read;
+                    while ((read = chunk.read(buffer.array())) != -1) {
+                        if (written + read > remaining) {
+                            throw new FileTooLargeException(session.getFileSize());
+                        }
+                        buffer.clear().limit(read);
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                        written += read;
+                    }
+                } catch (IOException e) {
+                    // The client went away mid-chunk: keep what arrived so it can resume from there
+                    interrupted = e;
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write chunk of upload " + uploadId, e);
+            }
+
+            long receivedBytes = offset + written;
+            OffsetDateTime expiresAt = OffsetDateTime.now().plus(sessionTtl);
+            if (uploadSessionRepository.advance(uploadId, offset, receivedBytes, expiresAt) == 0) {
+                throw new UploadConflictException("Upload " + uploadId + " was completed or cancelled meanwhile.");
+            }
+            if (interrupted != null) {
+                throw new UncheckedIOException("Chunk of upload " + uploadId + " ended early", interrupted);
+            }
+
+            session.setReceivedBytes(receivedBytes);
+            session.setExpiresAt(expiresAt);
+            return uploadSessionMapper.toDto(session);
+        } finally {
+            busy.remove(uploadId);
+        }
+    }
+
+    /**
+     * Deliberately not transactional: validating and hashing the assembled file, and copying it to the
+     * blob store, can take a while for large uploads and no connection is held meanwhile. Only removing
+     * the session and inserting the image run in a transaction. Content that can never become an image
+     * discards the session; other failures leave it in place so completing can be retried.
+     */
+    @Override
+    public Image completeSession(UUID uploadId) {
+        if (!busy.add(uploadId)) {
+            throw new UploadConflictException("Another request for this upload is still in progress.");
+        }
+
+        try {
+            UploadSessionEntity session = findOwnSession(uploadId);
+            if (session.getReceivedBytes() < session.getFileSize()) {
+                throw new UploadConflictException("Upload incomplete: received " + session.getReceivedBytes()
+                        + " of " + session.getFileSize() + " bytes.");
+            }
+
+            // The part file must hold exactly the announced bytes, nothing left over past the last offset
+            Path file = partFile(uploadId);
+            long assembled;
+            try {
+                assembled = Files.size(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read upload " + uploadId, e);
+            }
+            if (assembled != session.getFileSize()) {
+                throw new UploadConflictException("Assembled upload has " + assembled + " bytes, expected "
+                        + session.getFileSize() + ".");
+            }
+
+            // Not closed here: the upload owns the part file, which has to survive a failed completion
+            SpooledUpload upload;
+            try {
+                upload = uploadSpooler.inspect(file, maxFileSize);
+            } catch (InvalidFileTypeException | FileTooLargeException | EmptyFileException e) {
+                uploadSessionRepository.deleteById(uploadId);
+                deleteQuietly(file);
+                throw e;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read upload " + uploadId, e);
+            }
+
+            String writtenKey;
+            try {
+                writtenKey = contentAddressedStorage.write(upload.contentHash(), upload.size(), upload).orElse(null);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to store upload " + uploadId, e);
+            }
+
+            try {
+                return transactionTemplate.execute(status -> {
+                    // Looked up again: the session may have been cancelled meanwhile
+                    uploadSessionRepository.delete(findOwnSession(uploadId));
+                    deleteAfterCommit(file);
+                    return imageService.uploadImage(upload, writtenKey, session.getFileName(), session.getTitle(), session.getDescription());
+                });
+            } catch (RuntimeException e) {
+                if (writtenKey != null) {
+                    contentAddressedStorage.discard(writtenKey);
+                }
+                if (e instanceof InvalidFileTypeException) {
+                    // A corrupt header found once the content was read: retrying can't help either
+                    uploadSessionRepository.deleteById(uploadId);
+                    deleteQuietly(file);
+                }
+                throw e;
+            }
+        } finally {
+            busy.remove(uploadId);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void cancelSession(UUID uploadId) {
+        uploadSessionRepository.delete(findOwnSession(uploadId));
+        deleteAfterCommit(partFile(uploadId));
+    }
+
+    /**
+     * Discards sessions that saw no chunk within the TTL, and part files left without a session,
+     * e.g. by a crash between committing the removal and deleting the file.
+     */
+    @Scheduled(fixedDelayString = "${muralia.uploads.resumable.cleanup-interval:PT15M}",
+            initialDelayString = "${muralia.uploads.resumable.cleanup-interval:PT15M}")
+    public void purgeExpired() {
+        OffsetDateTime now = OffsetDateTime.now();
+        int purged = 0;
+        for (UploadSessionEntity session : uploadSessionRepository.findByExpiresAtBefore(now)) {
+            if (busy.contains(session.getId())) {
+                continue;
+            }
+            uploadSessionRepository.deleteById(session.getId());
+            deleteQuietly(partFile(session.getId()));
+            purged++;
+        }
+
+        Instant cutoff = now.minus(sessionTtl).toInstant();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + PART_SUFFIX)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)
+                        && !uploadSessionRepository.existsById(sessionIdOf(file))) {
+                    deleteQuietly(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not scan upload directory {}", directory, e);
+        }
+
+        if (purged > 0) {
+            log.info("Purged {} expired upload sessions", purged);
+        }
+    }
+
+    private UploadSessionEntity findOwnSession(UUID uploadId) {
+        // Other customers' sessions are reported as missing rather than forbidden
+        return uploadSessionRepository.findByIdAndCustomerId(uploadId, CurrentCustomer.get().id())
+                .orElseThrow(() -> new UploadSessionNotFoundException(uploadId));
+    }
+
+    private Path partFile(UUID uploadId) {
+        return directory.resolve(uploadId + PART_SUFFIX);
+    }
+
+    private static UUID sessionIdOf(Path file) {
+        String name = file.getFileName().toString();
+        return UUID.fromString(name.substring(0, name.length() - PART_SUFFIX.length()));
+    }
+
+    private static void deleteAfterCommit(Path file) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    deleteQuietly(file);
+                }
+            }
+        });
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete upload part file {}", file, e);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.muralia.service.mapper;
 
 import com.muralia.api.model.Image;
 import com.muralia.entity.ImageEntity;
+import com.muralia.repository.projection.ImageMetadata;
 import org.springframework.stereotype.Component;
 
 import java.net.URI;
@@ -10,6 +11,14 @@ import java.net.URI;
 public class ImageMapper {
 
     public Image toDto(ImageEntity entity) {
+        return toDto(entity, entity.getCustomer().getUsername());
+    }
+
+    /**
+     * For images whose owner's username is already known, e.g. the current customer's, so that a lazy
+     * customer reference is not loaded just for it.
+     */
+    public Image toDto(ImageEntity entity, String customerUsername) {
         Image dto = new Image();
         dto.setId(entity.getId());
         dto.setUrl(URI.create(entity.getUrl()));
@@ -24,8 +33,28 @@ public class ImageMapper {
         dto.setWidth(entity.getWidth());
         dto.setHeight(entity.getHeight());
         dto.setCustomerId(entity.getCustomer().getId());
-        dto.setCustomerUsername(entity.getCustomer().getUsername());
+        dto.setCustomerUsername(customerUsername);
         dto.setUploadedAt(entity.getUploadedAt());
         return dto;
     }
+
+    public Image toDto(ImageMetadata metadata) {
+        Image dto = new Image();
+        dto.setId(metadata.id());
+        dto.setUrl(URI.create(metadata.url()));
+        if (metadata.thumbnailUrl() != null) {
+            dto.setThumbnailUrl(URI.create(metadata.thumbnailUrl()));
+        }
+        dto.setTitle(metadata.title());
+        dto.setDescription(metadata.description());
+        dto.setFileName(metadata.fileName());
+        dto.setFileSize(metadata.fileSize());
+        dto.setMimeType(metadata.mimeType());
+        dto.setWidth(metadata.width());
+        dto.setHeight(metadata.height());
+        dto.setCustomerId(metadata.customerId());
+        dto.setCustomerUsername(metadata.customerUsername());
+        dto.setUploadedAt(metadata.uploadedAt());
+        return dto;
+    }
 }
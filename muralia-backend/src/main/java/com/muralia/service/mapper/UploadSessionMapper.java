@@ -0,0 +1,19 @@
+package com.muralia.service.mapper;
+
+import com.muralia.api.model.UploadSession;
+import com.muralia.entity.UploadSessionEntity;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UploadSessionMapper {
+
+    public UploadSession toDto(UploadSessionEntity entity) {
+        UploadSession dto = new UploadSession();
+        dto.setId(entity.getId());
+        dto.setFileName(entity.getFileName());
+        dto.setFileSize(entity.getFileSize());
+        dto.setReceivedBytes(entity.getReceivedBytes());
+        dto.setExpiresAt(entity.getExpiresAt());
+        return dto;
+    }
+}
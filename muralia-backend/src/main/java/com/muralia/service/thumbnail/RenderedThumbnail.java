@@ -0,0 +1,7 @@
+package com.muralia.service.thumbnail;
+
+/**
+ * An encoded thumbnail, bounded by {@code maxEdge} pixels on its longest side.
+ */
+public record RenderedThumbnail(int maxEdge, int width, int height, String mimeType, byte[] data) {
+}
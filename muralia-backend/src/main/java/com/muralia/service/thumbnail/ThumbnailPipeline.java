@@ -0,0 +1,185 @@
+package com.muralia.service.thumbnail;
+
+import com.muralia.config.WorkerThreads;
+import com.muralia.entity.BlobEntity;
+import com.muralia.entity.ThumbnailEntity;
+import com.muralia.entity.ThumbnailStatus;
+import com.muralia.event.ImageUploadedEvent;
+import com.muralia.exception.UndecodableImageException;
+import com.muralia.repository.BlobRepository;
+import com.muralia.repository.ThumbnailRepository;
+import com.muralia.storage.BlobStore;
+import com.muralia.storage.BlobStoreRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayInputStream;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates thumbnails in the background once an upload has committed.
+ *
+ * Work is tracked in the {@code thumbnails} table, not in memory: uploads insert pending rows in their
+ * own transaction, and the bounded worker pool only ever holds content hashes to look at. When the queue
+ * is full new work is simply left pending and picked up by the periodic sweep once there is room again,
+ * so upload bursts never block request threads or grow the heap, and nothing is lost on restart.
+ *
+ * Only content that can't be decoded marks its thumbnails failed. Any other failure, such as a storage
+ * read or a database error, leaves them pending for a later sweep.
+ */
+@Slf4j
+@Component
+public class ThumbnailPipeline {
+
+    private final ThumbnailRepository thumbnailRepository;
+    private final BlobRepository blobRepository;
+    private final BlobStoreRegistry blobStoreRegistry;
+    private final ThumbnailRenderer renderer;
+    private final List<Integer> sizes;
+    private final int defaultSize;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public ThumbnailPipeline(ThumbnailRepository thumbnailRepository,
+                             BlobRepository blobRepository,
+                             BlobStoreRegistry blobStoreRegistry,
+                             ThumbnailRenderer renderer,
+                             @Value("${muralia.thumbnails.sizes:200,400,800}") List<Integer> sizes,
+                             @Value("${muralia.thumbnails.default-size:400}") int defaultSize,
+                             @Value("${muralia.thumbnails.workers:2}") int workers,
+                             @Value("${muralia.thumbnails.queue-capacity:100}") int queueCapacity,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.thumbnailRepository = thumbnailRepository;
+        this.blobRepository = blobRepository;
+        this.blobStoreRegistry = blobStoreRegistry;
+        this.renderer = renderer;
+        this.sizes = sizes.stream().sorted().toList();
+        this.defaultSize = defaultSize;
+
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                WorkerThreads.factory("thumbnail", virtualThreads, Thread.NORM_PRIORITY - 1),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Queues every configured size for the contents. Must run in the transaction that references them.
+     */
+    public void request(Collection<String> contentHashes) {
+        if (contentHashes.isEmpty()) {
+            return;
+        }
+        thumbnailRepository.insertPending(new LinkedHashSet<>(contentHashes), sizes);
+    }
+
+    /**
+     * Maps a requested longest edge to the generated size serving it: the smallest one at least as large,
+     * or the largest one when none is.
+     */
+    public int resolveSize(Integer requested) {
+        int wanted = requested != null ? requested : defaultSize;
+        return sizes.stream()
+                .filter(size -> size >= wanted)
+                .findFirst()
+                .orElse(sizes.get(sizes.size() - 1));
+    }
+
+    @TransactionalEventListener
+    public void onImageUploaded(ImageUploadedEvent event) {
+        submit(event.contentHash());
+    }
+
+    @Scheduled(fixedDelayString = "${muralia.thumbnails.sweep-interval:PT1M}",
+            initialDelayString = "${muralia.thumbnails.sweep-interval:PT1M}")
+    public void sweep() {
+        int room = executor.getQueue().remainingCapacity();
+        if (room == 0) {
+            return;
+        }
+
+        thumbnailRepository.findContentHashesByStatus(ThumbnailStatus.PENDING, PageRequest.of(0, room))
+                .forEach(this::submit);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void submit(String contentHash) {
+        if (!inFlight.add(contentHash)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(contentHash);
+                } finally {
+                    inFlight.remove(contentHash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(contentHash);
+            log.debug("Thumbnail queue full, leaving {} for the next sweep", contentHash);
+        }
+    }
+
+    private void generate(String contentHash) {
+        List<ThumbnailEntity> pending = thumbnailRepository.findByContentHashAndStatus(contentHash, ThumbnailStatus.PENDING);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Gone when the last image using the content was deleted meanwhile
+        Optional<BlobEntity> blob = blobRepository.findById(contentHash);
+        if (blob.isEmpty()) {
+            return;
+        }
+
+        try {
+            Resource original = blobStoreRegistry.get(blob.get().getStorageBackend())
+                    .open(blob.get().getStorageKey(), blob.get().getByteSize());
+            List<RenderedThumbnail> rendered = renderer.render(original,
+                    pending.stream().map(ThumbnailEntity::getMaxEdge).toList());
+
+            BlobStore store = blobStoreRegistry.primary();
+            for (int i = 0; i < pending.size(); i++) {
+                RenderedThumbnail thumbnail = rendered.get(i);
+                String storageKey = UUID.randomUUID().toString();
+                store.put(storageKey, new ByteArrayInputStream(thumbnail.data()), thumbnail.data().length);
+
+                int published = thumbnailRepository.markReady(pending.get(i).getId(), thumbnail.mimeType(),
+                        thumbnail.width(), thumbnail.height(), thumbnail.data().length,
+                        store.getName(), storageKey, OffsetDateTime.now());
+                if (published == 0) {
+                    store.delete(storageKey);
+                }
+            }
+            log.debug("Generated {} thumbnails for {}", pending.size(), contentHash);
+        } catch (UndecodableImageException e) {
+            log.warn("Thumbnail generation failed for {}, giving up: {}", contentHash, e.getMessage());
+            thumbnailRepository.markFailed(pending.stream().map(ThumbnailEntity::getId).toList(), OffsetDateTime.now());
+        } catch (Exception e) {
+            // Storage or database trouble: the rows stay pending and the sweep tries again
+            log.warn("Thumbnail generation failed for {}, retrying on a later sweep: {}", contentHash, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.muralia.service.thumbnail;
+
+import com.muralia.exception.UndecodableImageException;
+import com.muralia.service.image.ImageHeaderReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Decodes an original once and renders JPEG thumbnails of several sizes from it.
+ *
+ * The original is subsampled while decoding, so a 40 megapixel photo is never held in memory at full
+ * resolution: only rows and columns needed for twice the largest requested size are kept, and the
+ * remaining downscale is done in halving steps for a clean result. The EXIF orientation is applied
+ * to the pixels, since it is not carried over to the re-encoded thumbnail.
+ *
+ * Content that no reader accepts or that fails to decode is reported as {@link UndecodableImageException},
+ * other I/O failures as plain {@link IOException}.
+ */
+@Component
+public class ThumbnailRenderer {
+
+    private static final String MIME_TYPE = "image/jpeg";
+
+    private final ImageHeaderReader imageHeaderReader;
+    private final float jpegQuality;
+
+    public ThumbnailRenderer(ImageHeaderReader imageHeaderReader,
+                             @Value("${muralia.thumbnails.jpeg-quality:0.8}") float jpegQuality) {
+        this.imageHeaderReader = imageHeaderReader;
+        this.jpegQuality = jpegQuality;
+    }
+
+    public List<RenderedThumbnail> render(Resource original, List<Integer> maxEdges) throws IOException {
+        int orientation = imageHeaderReader.readOrientation(original);
+        BufferedImage source = decode(original, Collections.max(maxEdges));
+
+        List<RenderedThumbnail> thumbnails = new ArrayList<>(maxEdges.size());
+        for (int maxEdge : maxEdges) {
+            BufferedImage scaled = orient(scale(source, maxEdge), orientation);
+            thumbnails.add(new RenderedThumbnail(maxEdge, scaled.getWidth(), scaled.getHeight(), MIME_TYPE, encode(scaled)));
+        }
+        return thumbnails;
+    }
+
+    private BufferedImage decode(Resource original, int largestEdge) throws IOException {
+        try (InputStream in = original.getInputStream();
+             ImageInputStream images = new MemoryCacheImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(images);
+            if (!readers.hasNext()) {
+                throw new UndecodableImageException("Unsupported image format");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                // Forward-only: the stream cache is flushed as decoding advances
+                reader.setInput(images, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longest / (largestEdge * 2));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } catch (IIOException e) {
+                // The plugins wrap failures of the underlying stream too, those are worth retrying
+                if (e.getCause() instanceof IOException cause && !(cause instanceof IIOException)) {
+                    throw cause;
+                }
+                throw new UndecodableImageException("Corrupt image data: " + e.getMessage(), e);
+            } catch (RuntimeException e) {
+                throw new UndecodableImageException("Corrupt image data: " + e, e);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int maxEdge) {
+        double ratio = Math.min(1d, (double) maxEdge / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        // Always at least one pass: it also flattens transparency onto white for JPEG
+        BufferedImage current = source;
+        do {
+            int width = Math.max(targetWidth, current.getWidth() / 2);
+            int height = Math.max(targetHeight, current.getHeight() / 2);
+
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, width, height, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (current.getWidth() != targetWidth || current.getHeight() != targetHeight);
+
+        return current;
+    }
+
+    /**
+     * Maps the stored pixels to their upright position for EXIF orientations 2 to 8.
+     */
+    private static BufferedImage orient(BufferedImage image, int orientation) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);   // mirror horizontal
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);  // rotate 180
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);   // mirror vertical
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);    // transpose
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);   // rotate 90 clockwise
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);  // transverse
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);   // rotate 90 counter-clockwise
+            default -> null;
+        };
+        if (transform == null) {
+            return image;
+        }
+
+        boolean swapsAxes = orientation >= 5;
+        BufferedImage oriented = new BufferedImage(swapsAxes ? h : w, swapsAxes ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = oriented.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return oriented;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream images = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(images);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
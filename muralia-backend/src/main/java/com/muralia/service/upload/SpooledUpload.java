@@ -0,0 +1,43 @@
+package com.muralia.service.upload;
+
+import com.muralia.service.image.ImageFormat;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * An upload that has been validated and hashed, held either in memory or in a temporary file.
+ * Can be read any number of times; closing it deletes the temporary file.
+ *
+ * @param format the format recognised from the content's magic bytes
+ * @param size content length in bytes
+ * @param contentHash SHA-256 of the content, hex encoded
+ * @param content the content when it stayed below the spool threshold, otherwise {@code null}
+ * @param file the temporary file holding the content otherwise, else {@code null}
+ */
+@Slf4j
+public record SpooledUpload(ImageFormat format, long size, String contentHash, byte[] content, Path file)
+        implements InputStreamSource, AutoCloseable {
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return content != null ? new ByteArrayInputStream(content) : Files.newInputStream(file);
+    }
+
+    @Override
+    public void close() {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete upload spool file {}", file, e);
+        }
+    }
+}
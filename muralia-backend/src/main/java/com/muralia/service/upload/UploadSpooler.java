@@ -0,0 +1,176 @@
+package com.muralia.service.upload;
+
+import com.muralia.exception.EmptyFileException;
+import com.muralia.exception.FileTooLargeException;
+import com.muralia.exception.InvalidFileTypeException;
+import com.muralia.service.image.ImageFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Reads an upload exactly once through a fixed-size buffer, sniffing its format from the first bytes,
+ * hashing it, enforcing the size limit and spooling it: in memory up to the threshold, then to a
+ * temporary file. Non-images and oversized uploads are rejected as soon as that is known, before the
+ * rest of the request body is read.
+ *
+ * Multipart uploads are the exception: the container has read the whole part by then, so a large one is
+ * taken over from the container's temporary storage instead of being written a second time.
+ */
+@Component
+public class UploadSpooler {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final long maxFileSize;
+    private final long memoryThreshold;
+    private final Path spoolDirectory;
+
+    public UploadSpooler(@Value("${muralia.uploads.max-file-size:10MB}") DataSize maxFileSize,
+                         @Value("${muralia.uploads.spool.memory-threshold:256KB}") DataSize memoryThreshold,
+                         @Value("${muralia.uploads.spool.directory:${java.io.tmpdir}}") Path spoolDirectory) {
+        this.maxFileSize = maxFileSize.toBytes();
+        this.memoryThreshold = memoryThreshold.toBytes();
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    /**
+     * @param in the upload content, read to the end but not closed
+     * @param declaredContentType the client's content type, only used in error messages
+     */
+    public SpooledUpload spool(InputStream in, String declaredContentType) throws IOException {
+        Inspection inspection = new Inspection(maxFileSize, declaredContentType);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ByteArrayOutputStream memory = new ByteArrayOutputStream();
+        OutputStream out = memory;
+        Path file = null;
+
+        try {
+            int read;
+            while ((read = in.readNBytes(buffer, 0, BUFFER_SIZE)) > 0) {
+                inspection.update(buffer, read);
+
+                if (file == null && inspection.size > memoryThreshold) {
+                    file = Files.createTempFile(spoolDirectory, "upload-", ".spool");
+                    out = Files.newOutputStream(file);
+                    memory.writeTo(out);
+                    memory = null;
+                }
+                out.write(buffer, 0, read);
+            }
+            out.close();
+
+            return inspection.finish(memory != null ? memory.toByteArray() : null, file);
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Same as {@link #spool(InputStream, String)} for a multipart file. The container has already written
+     * a large part to its own temporary file, and has enforced the multipart size limit while doing so.
+     * That file is moved into the spool directory and inspected in place. {@code transferTo(File)} goes
+     * through {@code Part.write}, which renames the file when the spool directory is on the same
+     * filesystem as the multipart location, and copies it otherwise. {@code transferTo(Path)} would
+     * always copy.
+     */
+    public SpooledUpload spool(MultipartFile part) throws IOException {
+        if (part.getSize() <= memoryThreshold) {
+            try (InputStream in = part.getInputStream()) {
+                return spool(in, part.getContentType());
+            }
+        }
+
+        Path file = Files.createTempFile(spoolDirectory, "upload-", ".spool");
+        try {
+            part.transferTo(file.toFile());
+            return inspect(file, maxFileSize, part.getContentType());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Same checks as {@link #spool(InputStream, String)} for content that is already in a file, e.g. an
+     * assembled resumable upload. The file is read once and not copied; the returned upload owns it.
+     *
+     * @param maxFileSize size limit in bytes for this kind of upload
+     */
+    public SpooledUpload inspect(Path file, long maxFileSize) throws IOException {
+        return inspect(file, maxFileSize, null);
+    }
+
+    private SpooledUpload inspect(Path file, long maxFileSize, String declaredContentType) throws IOException {
+        Inspection inspection = new Inspection(maxFileSize, declaredContentType);
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.readNBytes(buffer, 0, BUFFER_SIZE)) > 0) {
+                inspection.update(buffer, read);
+            }
+        }
+        return inspection.finish(null, file);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Format sniffing, size enforcement and hashing, fed one buffer at a time.
+     */
+    private static final class Inspection {
+
+        private final MessageDigest digest = sha256();
+        private final long maxFileSize;
+        private final String declaredContentType;
+        private ImageFormat format;
+        private long size;
+
+        private Inspection(long maxFileSize, String declaredContentType) {
+            this.maxFileSize = maxFileSize;
+            this.declaredContentType = declaredContentType;
+        }
+
+        private void update(byte[] buffer, int length) {
+            if (format == null) {
+                format = ImageFormat.sniff(buffer, length)
+                        .orElseThrow(() -> InvalidFileTypeException.unrecognizedContent(declaredContentType));
+            }
+
+            size += length;
+            if (size > maxFileSize) {
+                throw new FileTooLargeException(maxFileSize);
+            }
+            digest.update(buffer, 0, length);
+        }
+
+        private SpooledUpload finish(byte[] content, Path file) {
+            if (size == 0) {
+                throw new EmptyFileException();
+            }
+            return new SpooledUpload(format, size, HexFormat.of().formatHex(digest.digest()), content, file);
+        }
+    }
+}
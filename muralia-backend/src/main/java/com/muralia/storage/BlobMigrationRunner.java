@@ -0,0 +1,121 @@
+package com.muralia.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * One-off tool that moves existing image blobs and generated thumbnails to another backend, in batches.
+ * Enabled by setting {@code muralia.storage.migration.target}, e.g.
+ * {@code java -jar app.jar --muralia.storage.migration.target=filesystem}.
+ *
+ * Each blob is copied first, then the row is switched to the new backend and the source copy deleted
+ * in one transaction, so an interrupted run can simply be restarted. Blobs shared by several images
+ * are moved once. Thumbnails still pending have nothing stored yet and are written to the primary
+ * backend when generated.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "muralia.storage.migration.target")
+public class BlobMigrationRunner implements ApplicationRunner {
+
+    private static final String SELECT_BATCH_SQL =
+            "SELECT content_hash AS id, storage_backend, storage_key, byte_size FROM blobs " +
+            "WHERE storage_backend <> ? ORDER BY content_hash LIMIT ?";
+    private static final String SWITCH_BACKEND_SQL =
+            "UPDATE blobs SET storage_backend = ? WHERE content_hash = ? AND storage_backend = ?";
+    private static final String SELECT_THUMBNAIL_BATCH_SQL =
+            "SELECT id, storage_backend, storage_key, byte_size FROM thumbnails " +
+            "WHERE storage_backend <> ? ORDER BY id LIMIT ?";
+    private static final String SWITCH_THUMBNAIL_BACKEND_SQL =
+            "UPDATE thumbnails SET storage_backend = ? WHERE id = ? AND storage_backend = ?";
+
+    private final BlobStoreRegistry blobStoreRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String target;
+    private final int batchSize;
+
+    public BlobMigrationRunner(BlobStoreRegistry blobStoreRegistry,
+                               JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${muralia.storage.migration.target}") String target,
+                               @Value("${muralia.storage.migration.batch-size:100}") int batchSize) {
+        this.blobStoreRegistry = blobStoreRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.target = target;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        BlobStore targetStore = blobStoreRegistry.get(target);
+        log.info("Migrating image blobs and thumbnails to '{}' backend", target);
+
+        long blobs = migrateAll("blobs", SELECT_BATCH_SQL, SWITCH_BACKEND_SQL, targetStore);
+        long thumbnails = migrateAll("thumbnails", SELECT_THUMBNAIL_BATCH_SQL, SWITCH_THUMBNAIL_BACKEND_SQL, targetStore);
+
+        log.info("Blob migration to '{}' finished, {} blobs and {} thumbnails moved", target, blobs, thumbnails);
+    }
+
+    private long migrateAll(String kind, String selectSql, String switchSql, BlobStore targetStore) {
+        long migrated = 0;
+        List<BlobRow> batch;
+        do {
+            batch = jdbcTemplate.query(selectSql,
+                    (rs, rowNum) -> new BlobRow(
+                            rs.getObject("id"),
+                            rs.getString("storage_backend"),
+                            rs.getString("storage_key"),
+                            rs.getLong("byte_size")),
+                    target, batchSize);
+
+            for (BlobRow row : batch) {
+                migrate(row, switchSql, targetStore);
+                migrated++;
+            }
+            log.info("Migrated {} {} to '{}'", migrated, kind, target);
+        } while (!batch.isEmpty());
+        return migrated;
+    }
+
+    private void migrate(BlobRow row, String switchSql, BlobStore targetStore) {
+        BlobStore sourceStore = blobStoreRegistry.get(row.backend());
+
+        try (InputStream in = sourceStore.open(row.key(), row.size()).getInputStream()) {
+            targetStore.put(row.key(), in, row.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to copy blob " + row.id(), e);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                if (jdbcTemplate.update(switchSql, target, row.id(), row.backend()) == 1) {
+                    sourceStore.delete(row.key());
+                } else {
+                    // Released meanwhile by the deletion of its last image; the copy is unreferenced
+                    targetStore.delete(row.key());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete blob copy " + row.id(), e);
+            }
+        });
+    }
+
+    /**
+     * A stored copy to move: a blob, by content hash, or a thumbnail, by row id.
+     */
+    private record BlobRow(Object id, String backend, String key, long size) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.muralia.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Storage for image binaries, addressed by an opaque key.
+ * Implementations are registered as beans and looked up by {@link #getName()}, which is what
+ * {@code blobs.storage_backend} records for every stored content.
+ */
+public interface BlobStore {
+
+    /**
+     * @return the backend name persisted alongside each blob reference
+     */
+    String getName();
+
+    /**
+     * Stores the content under the given key. Storing the same key twice keeps a single copy.
+     * When called inside a transaction, a rollback must not leave the blob visible to readers.
+     *
+     * @param key the blob key
+     * @param content the content, read to the end but not closed
+     * @param contentLength the exact number of bytes in the content
+     */
+    void put(String key, InputStream content, long contentLength) throws IOException;
+
+    /**
+     * Returns a lazily opened resource for the blob. Nothing is read until
+     * {@link Resource#getInputStream()} is called and every call opens a new stream.
+     *
+     * @param key the blob key
+     * @param contentLength the known size of the blob
+     */
+    Resource open(String key, long contentLength);
+
+    /**
+     * Deletes the blob. When called inside a transaction, the content stays readable until it commits.
+     */
+    void delete(String key) throws IOException;
+}
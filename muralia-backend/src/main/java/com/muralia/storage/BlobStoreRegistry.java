@@ -0,0 +1,41 @@
+package com.muralia.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves blob stores by backend name. New uploads go to the store configured with
+ * {@code muralia.storage.backend}; existing blobs are always read from the backend recorded for them.
+ */
+@Component
+public class BlobStoreRegistry {
+
+    private final Map<String, BlobStore> stores;
+    private final BlobStore primary;
+
+    public BlobStoreRegistry(List<BlobStore> stores,
+                             @Value("${muralia.storage.backend:database}") String primaryBackend) {
+        this.stores = stores.stream().collect(Collectors.toMap(BlobStore::getName, Function.identity()));
+        this.primary = get(primaryBackend);
+    }
+
+    /**
+     * @return the store new blobs are written to
+     */
+    public BlobStore primary() {
+        return primary;
+    }
+
+    public BlobStore get(String backend) {
+        BlobStore store = stores.get(backend);
+        if (store == null) {
+            throw new IllegalArgumentException("Unknown storage backend: " + backend + " (available: " + stores.keySet() + ")");
+        }
+        return store;
+    }
+}
@@ -0,0 +1,179 @@
+package com.muralia.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Stores each distinct image content once, keyed by its SHA-256 in the {@code blobs} table,
+ * and reference-counts the images using it.
+ *
+ * Must be called inside the transaction that inserts or deletes the referencing image row:
+ * reference count updates lock the blob row until that transaction ends, which serializes an
+ * upload of some content against the release of its last reference.
+ *
+ * Physical copies get a fresh random storage key rather than the hash itself, so a copy being
+ * deleted after commit can never be confused with a new copy of the same content written meanwhile.
+ */
+@Slf4j
+@Component
+public class ContentAddressedStorage {
+
+    private static final String INCREMENT_SQL =
+            "UPDATE blobs SET ref_count = ref_count + 1 WHERE content_hash = ? " +
+            "RETURNING content_hash, storage_backend, storage_key, byte_size";
+    private static final String INSERT_SQL =
+            "INSERT INTO blobs (content_hash, storage_backend, storage_key, byte_size, ref_count, created_at) " +
+            "VALUES (?, ?, ?, ?, 1, now()) " +
+            "ON CONFLICT (content_hash) DO UPDATE SET ref_count = blobs.ref_count + 1 " +
+            "RETURNING content_hash, storage_backend, storage_key, byte_size";
+    private static final String DECREMENT_SQL =
+            "UPDATE blobs SET ref_count = ref_count - 1 WHERE content_hash = ? " +
+            "RETURNING ref_count, storage_backend, storage_key";
+    private static final String EXISTS_SQL = "SELECT count(*) FROM blobs WHERE content_hash = ?";
+    private static final String DELETE_SQL = "DELETE FROM blobs WHERE content_hash = ? AND ref_count <= 0";
+    private static final String DELETE_THUMBNAILS_SQL =
+            "DELETE FROM thumbnails WHERE content_hash = ? RETURNING storage_backend, storage_key";
+
+    private final BlobStoreRegistry blobStoreRegistry;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ContentAddressedStorage(BlobStoreRegistry blobStoreRegistry, JdbcTemplate jdbcTemplate) {
+        this.blobStoreRegistry = blobStoreRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds a reference to the content with the given hash, writing the bytes to the primary
+     * blob store only if no copy exists yet.
+     *
+     * @param contentHash SHA-256 of the content, hex encoded
+     * @param size content length in bytes
+     * @param content source of the bytes, only opened when a new copy is needed
+     */
+    public StoredBlob acquire(String contentHash, long size, InputStreamSource content) throws IOException {
+        return acquire(contentHash, size, content, null);
+    }
+
+    /**
+     * Same as {@link #acquire(String, long, InputStreamSource)}, using a copy made by {@link #write} when
+     * one is needed and deleting it when it is not.
+     *
+     * @param writtenKey storage key returned by {@link #write}, or {@code null}
+     */
+    public StoredBlob acquire(String contentHash, long size, InputStreamSource content, String writtenKey) throws IOException {
+        Optional<StoredBlob> existing = queryBlob(INCREMENT_SQL, true, contentHash);
+        BlobStore store = blobStoreRegistry.primary();
+        if (existing.isPresent()) {
+            if (writtenKey != null) {
+                store.delete(writtenKey);
+            }
+            return existing.get();
+        }
+
+        String storageKey = writtenKey;
+        if (storageKey == null) {
+            storageKey = UUID.randomUUID().toString();
+            try (InputStream in = content.getInputStream()) {
+                store.put(storageKey, in, size);
+            }
+        }
+
+        StoredBlob stored = queryBlob(INSERT_SQL, false, contentHash, store.getName(), storageKey, size)
+                .orElseThrow(() -> new IllegalStateException("Blob upsert returned no row for " + contentHash));
+
+        if (!stored.storageKey().equals(storageKey)) {
+            // A concurrent upload of the same content won the insert; our copy is unreferenced
+            store.delete(storageKey);
+            return new StoredBlob(stored.contentHash(), stored.storageBackend(), stored.storageKey(), stored.size(), true);
+        }
+        return stored;
+    }
+
+    /**
+     * Copies content that is not stored yet to the primary blob store ahead of the transaction that will
+     * reference it, so that transaction does not span the write. Call outside a transaction; the copy
+     * stays unreferenced until passed to {@link #acquire(String, long, InputStreamSource, String)}, and
+     * must be {@link #discard discarded} if that never commits.
+     *
+     * @return the storage key of the copy, or empty when the content is already stored
+     */
+    public Optional<String> write(String contentHash, long size, InputStreamSource content) throws IOException {
+        Integer known = jdbcTemplate.queryForObject(EXISTS_SQL, Integer.class, contentHash);
+        if (known != null && known > 0) {
+            return Optional.empty();
+        }
+
+        String storageKey = UUID.randomUUID().toString();
+        try (InputStream in = content.getInputStream()) {
+            blobStoreRegistry.primary().put(storageKey, in, size);
+        }
+        return Optional.of(storageKey);
+    }
+
+    /**
+     * Deletes a copy made by {@link #write} whose reference was never committed.
+     */
+    public void discard(String writtenKey) {
+        try {
+            blobStoreRegistry.primary().delete(writtenKey);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not delete unreferenced blob copy {}", writtenKey, e);
+        }
+    }
+
+    /**
+     * Drops one reference to the content. When it was the last one, the blob row and its thumbnails are
+     * deleted and their stored copies removed (for transaction-aware stores, once the transaction commits).
+     */
+    public void release(String contentHash) throws IOException {
+        List<Released> rows = jdbcTemplate.query(DECREMENT_SQL,
+                (rs, rowNum) -> new Released(rs.getInt("ref_count"), rs.getString("storage_backend"), rs.getString("storage_key")),
+                contentHash);
+
+        if (rows.isEmpty()) {
+            log.warn("Released unknown blob {}", contentHash);
+            return;
+        }
+
+        Released released = rows.get(0);
+        if (released.refCount() <= 0) {
+            List<StoredCopy> thumbnails = jdbcTemplate.query(DELETE_THUMBNAILS_SQL,
+                    (rs, rowNum) -> new StoredCopy(rs.getString("storage_backend"), rs.getString("storage_key")),
+                    contentHash);
+            for (StoredCopy thumbnail : thumbnails) {
+                if (thumbnail.storageKey() != null) {
+                    blobStoreRegistry.get(thumbnail.storageBackend()).delete(thumbnail.storageKey());
+                }
+            }
+
+            jdbcTemplate.update(DELETE_SQL, contentHash);
+            blobStoreRegistry.get(released.storageBackend()).delete(released.storageKey());
+            log.debug("Released last reference to blob {}", contentHash);
+        }
+    }
+
+    private Optional<StoredBlob> queryBlob(String sql, boolean deduplicated, Object... args) {
+        return jdbcTemplate.query(sql,
+                (rs, rowNum) -> new StoredBlob(
+                        rs.getString("content_hash"),
+                        rs.getString("storage_backend"),
+                        rs.getString("storage_key"),
+                        rs.getLong("byte_size"),
+                        deduplicated),
+                args).stream().findFirst();
+    }
+
+    private record Released(int refCount, String storageBackend, String storageKey) {
+    }
+
+    private record StoredCopy(String storageBackend, String storageKey) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.muralia.storage;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Lazily opened blob stored in the database. Nothing is read until {@link #getInputStream()} is called,
+ * so responses that end up as {@code 304 Not Modified} never touch the blob, and every call opens a
+ * fresh stream so multi-range responses can read each region independently.
+ */
+class DatabaseBlobResource extends AbstractResource {
+
+    private final DatabaseBlobStore store;
+    private final String key;
+    private final long contentLength;
+
+    DatabaseBlobResource(DatabaseBlobStore store, String key, long contentLength) {
+        this.store = store;
+        this.key = key;
+        this.contentLength = contentLength;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return store.openStream(key);
+    }
+
+    @Override
+    public boolean exists() {
+        // Backed by a row that was just referenced; avoid AbstractResource opening a stream to check
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Database blob [" + key + "]";
+    }
+}
@@ -0,0 +1,104 @@
+package com.muralia.storage;
+
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Stores blobs as bytea rows in {@code image_blobs}.
+ * Writes and deletes go through {@link JdbcTemplate} and therefore join the surrounding transaction.
+ * Reads use their own connection, held only while the returned stream is open.
+ */
+@Component
+public class DatabaseBlobStore implements BlobStore {
+
+    public static final String NAME = "database";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO image_blobs (blob_key, data) VALUES (?, ?) ON CONFLICT (blob_key) DO NOTHING";
+    private static final String SELECT_SQL = "SELECT data FROM image_blobs WHERE blob_key = ?";
+    private static final String DELETE_SQL = "DELETE FROM image_blobs WHERE blob_key = ?";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    public DatabaseBlobStore(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void put(String key, InputStream content, long contentLength) {
+        jdbcTemplate.update(INSERT_SQL, ps -> {
+            ps.setString(1, key);
+            ps.setBinaryStream(2, content, contentLength);
+        });
+    }
+
+    @Override
+    public Resource open(String key, long contentLength) {
+        return new DatabaseBlobResource(this, key, contentLength);
+    }
+
+    @Override
+    public void delete(String key) {
+        jdbcTemplate.update(DELETE_SQL, key);
+    }
+
+    InputStream openStream(String key) throws IOException {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = dataSource.getConnection();
+            statement = connection.prepareStatement(SELECT_SQL);
+            statement.setString(1, key);
+            resultSet = statement.executeQuery();
+
+            if (!resultSet.next()) {
+                release(connection, statement, resultSet);
+                throw new FileNotFoundException("Blob not found: " + key);
+            }
+
+            Connection heldConnection = connection;
+            PreparedStatement heldStatement = statement;
+            ResultSet heldResultSet = resultSet;
+            return new FilterInputStream(resultSet.getBinaryStream(1)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        release(heldConnection, heldStatement, heldResultSet);
+                    }
+                }
+            };
+
+        } catch (SQLException e) {
+            release(connection, statement, resultSet);
+            throw new IOException("Failed to read blob " + key, e);
+        }
+    }
+
+    private static void release(Connection connection, PreparedStatement statement, ResultSet resultSet) {
+        JdbcUtils.closeResultSet(resultSet);
+        JdbcUtils.closeStatement(statement);
+        JdbcUtils.closeConnection(connection);
+    }
+}
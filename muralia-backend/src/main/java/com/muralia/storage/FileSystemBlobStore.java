@@ -0,0 +1,112 @@
+package com.muralia.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.regex.Pattern;
+
+/**
+ * Stores blobs as files below {@code muralia.storage.filesystem.root}, sharded by the first four
+ * characters of the key ({@code ab/cd/abcd...}) to keep directories small.
+ * Files are written to a temporary name and atomically moved into place, so readers never see
+ * partial content. Being file-backed, served blobs qualify for zero-copy transfer.
+ */
+@Slf4j
+@Component
+public class FileSystemBlobStore implements BlobStore {
+
+    public static final String NAME = "filesystem";
+
+    private static final Pattern VALID_KEY = Pattern.compile("[A-Za-z0-9_-]{4,128}");
+    private static final String TMP_DIR = ".tmp";
+
+    private final Path root;
+
+    public FileSystemBlobStore(@Value("${muralia.storage.filesystem.root:data/blobs}") String root) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void put(String key, InputStream content, long contentLength) throws IOException {
+        Path target = resolve(key);
+        Path tmpDir = root.resolve(TMP_DIR);
+        Files.createDirectories(tmpDir);
+        Files.createDirectories(target.getParent());
+
+        Path tmp = Files.createTempFile(tmpDir, key, ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                content.transferTo(out);
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        // The database row referencing the file may still roll back; don't leave an orphan behind
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        deleteQuietly(target);
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public Resource open(String key, long contentLength) {
+        return new FileSystemResource(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Path target = resolve(key);
+
+        // Keep the file readable until the deleting transaction has committed
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteQuietly(target);
+                }
+            });
+        } else {
+            Files.deleteIfExists(target);
+        }
+    }
+
+    Path resolve(String key) {
+        if (!VALID_KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete blob file {}: {}", path, e.getMessage());
+        }
+    }
+}
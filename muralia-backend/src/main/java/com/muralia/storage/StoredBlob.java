@@ -0,0 +1,13 @@
+package com.muralia.storage;
+
+/**
+ * Location of a content-addressed blob.
+ *
+ * @param contentHash SHA-256 of the content, hex encoded
+ * @param storageBackend name of the {@link BlobStore} holding the bytes
+ * @param storageKey key of the bytes within that store
+ * @param size content length in bytes
+ * @param deduplicated whether an existing copy was reused instead of writing a new one
+ */
+public record StoredBlob(String contentHash, String storageBackend, String storageKey, long size, boolean deduplicated) {
+}
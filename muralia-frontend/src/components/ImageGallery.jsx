@@ -7,7 +7,7 @@ export default function ImageGallery({ refreshTrigger }) {
   const [images, setImages] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
-  const [page, setPage] = useState(0);
+  const [nextCursor, setNextCursor] = useState(null);
   const [hasMore, setHasMore] = useState(true);
   const [loadingMore, setLoadingMore] = useState(false);
   const [selectedImage, setSelectedImage] = useState(null);
@@ -23,13 +23,12 @@ export default function ImageGallery({ refreshTrigger }) {
     try {
       if (reset) {
         setLoading(true);
-        setPage(0);
       } else {
         setLoadingMore(true);
       }
 
-      const currentPage = reset ? 0 : page;
-      const response = await imagesAPI.getLatestImages(limit, currentPage * limit);
+      const cursor = reset ? null : nextCursor;
+      const response = await imagesAPI.getLatestImages(limit, 0, cursor);
       const newImages = response.data.images;
 
       if (reset) {
@@ -38,7 +37,8 @@ export default function ImageGallery({ refreshTrigger }) {
         setImages((prev) => [...prev, ...newImages]);
       }
 
-      setHasMore(newImages.length === limit);
+      setNextCursor(response.data.nextCursor || null);
+      setHasMore(Boolean(response.data.nextCursor));
       setError('');
     } catch (err) {
       setError(err.response?.data?.message || 'Failed to load images');
@@ -62,7 +62,6 @@ export default function ImageGallery({ refreshTrigger }) {
   };
 
   const loadMore = () => {
-    setPage((prev) => prev + 1);
     loadImages(false);
   };
 
@@ -166,7 +165,8 @@ export default function ImageGallery({ refreshTrigger }) {
               onClick={() => handleImageClick(image)}
             >
               <img
-                src={imagesAPI.getImageFileUrl(image.id)}
+                src={imagesAPI.getImageThumbnailUrl(image.id, 400)}
+                srcSet={`${imagesAPI.getImageThumbnailUrl(image.id, 400)} 1x, ${imagesAPI.getImageThumbnailUrl(image.id, 800)} 2x`}
                 alt={image.title || 'Image'}
                 className="w-full h-full object-cover group-hover:scale-105 transition-transform duration-300"
                 loading="lazy"
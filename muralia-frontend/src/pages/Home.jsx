@@ -1,12 +1,21 @@
-import { useState } from 'react';
+import { useState, useEffect } from 'react';
 import { Link } from 'react-router-dom';
 import { useAuth } from '../context/AuthContext';
 import ImageGallery from '../components/ImageGallery';
+import { imagesAPI } from '../services/api';
 
 export default function Home() {
   const { isAuthenticated } = useAuth();
   const [refreshKey, setRefreshKey] = useState(0);
 
+  // Reload the gallery when images are uploaded or deleted; EventSource reconnects and resumes by itself
+  useEffect(() => {
+    const stream = new EventSource(imagesAPI.getImageStreamUrl());
+    const refresh = () => setRefreshKey((key) => key + 1);
+    ['uploaded', 'deleted', 'resync'].forEach((type) => stream.addEventListener(type, refresh));
+    return () => stream.close();
+  }, []);
+
   return (
     <div className="min-h-screen bg-gray-50">
       {/* Hero Section */}
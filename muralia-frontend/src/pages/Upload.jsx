@@ -1,6 +1,10 @@
 import { useState } from 'react';
 import { useNavigate } from 'react-router-dom';
-import { imagesAPI } from '../services/api';
+import { imagesAPI, uploadsAPI } from '../services/api';
+
+// Larger files are sent in resumable chunks instead of a single request
+const MAX_FILE_SIZE = 200 * 1024 * 1024;
+const SINGLE_UPLOAD_MAX_SIZE = 8 * 1024 * 1024;
 
 export default function Upload() {
   const [file, setFile] = useState(null);
@@ -8,6 +12,7 @@ export default function Upload() {
   const [description, setDescription] = useState('');
   const [preview, setPreview] = useState(null);
   const [loading, setLoading] = useState(false);
+  const [progress, setProgress] = useState(null);
   const [error, setError] = useState('');
   const [dragActive, setDragActive] = useState(false);
 
@@ -21,9 +26,9 @@ export default function Upload() {
         return;
       }
 
-      // Validate file size (10MB max)
-      if (selectedFile.size > 10 * 1024 * 1024) {
-        setError('El tamaño del archivo debe ser menor a 10MB');
+      // Validate file size (200MB max)
+      if (selectedFile.size > MAX_FILE_SIZE) {
+        setError('El tamaño del archivo debe ser menor a 200MB');
         return;
       }
 
@@ -71,18 +76,27 @@ export default function Upload() {
     setLoading(true);
 
     try {
-      const formData = new FormData();
-      formData.append('file', file);
-      if (title) formData.append('title', title);
-      if (description) formData.append('description', description);
+      if (file.size > SINGLE_UPLOAD_MAX_SIZE) {
+        await uploadsAPI.uploadFile(
+          file,
+          { title: title || undefined, description: description || undefined },
+          (fraction) => setProgress(Math.round(fraction * 100))
+        );
+      } else {
+        const formData = new FormData();
+        formData.append('file', file);
+        if (title) formData.append('title', title);
+        if (description) formData.append('description', description);
 
-      await imagesAPI.uploadImage(formData);
+        await imagesAPI.uploadImage(formData);
+      }
 
       // Success - redirect to home
       navigate('/');
     } catch (err) {
       setError(err.response?.data?.message || 'Error al subir la imagen');
       setLoading(false);
+      setProgress(null);
     }
   };
 
@@ -148,7 +162,7 @@ export default function Upload() {
                   Arrastra tu imagen aquí, o haz clic para explorar
                 </p>
                 <p className="mt-2 text-sm text-gray-500">
-                  PNG, JPG, GIF o WebP hasta 10MB
+                  PNG, JPG, GIF o WebP hasta 200MB
                 </p>
                 <input
                   type="file"
@@ -250,7 +264,7 @@ export default function Upload() {
                         <circle className="opacity-25" cx="12" cy="12" r="10" stroke="currentColor" strokeWidth="4"></circle>
                         <path className="opacity-75" fill="currentColor" d="M4 12a8 8 0 018-8V0C5.373 0 0 5.373 0 12h4zm2 5.291A7.962 7.962 0 014 12H0c0 3.042 1.135 5.824 3 7.938l3-2.647z"></path>
                       </svg>
-                      Subiendo...
+                      {progress !== null ? `Subiendo... ${progress}%` : 'Subiendo...'}
                     </span>
                   ) : (
                     'Subir imagen'
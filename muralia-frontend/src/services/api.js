@@ -80,14 +80,80 @@ export const imagesAPI = {
       },
     });
   },
-  getLatestImages: (limit = 20, offset = 0) => {
-    return api.get('/api/images', {
-      params: { limit, offset },
+  // formData holds up to 50 `files`, plus an optional shared title/description; returns per-file results
+  uploadImages: (formData) => {
+    return api.post('/api/images/batch', formData, {
+      headers: {
+        'Content-Type': 'multipart/form-data',
+      },
     });
   },
+  getLatestImages: (limit = 20, offset = 0, cursor = null) => {
+    // When a cursor is given the backend uses keyset pagination and ignores offset
+    const params = cursor ? { limit, cursor } : { limit, offset };
+    return api.get('/api/images', { params });
+  },
   getImageById: (imageId) => api.get(`/api/images/${imageId}`),
   deleteImage: (imageId) => api.delete(`/api/images/${imageId}`),
   getImageFileUrl: (imageId) => `${API_BASE_URL}/api/images/${imageId}/file`,
+
+  // Downscaled JPEG bounded by `size` px; the backend serves the original until it is generated
+  getImageThumbnailUrl: (imageId, size) => `${API_BASE_URL}/api/images/${imageId}/thumbnail?size=${size}`,
+
+  // Server-Sent Events: uploaded, deleted and resync
+  getImageStreamUrl: () => `${API_BASE_URL}/api/images/stream`,
+};
+
+// Resumable uploads, for files above the single-request limit
+const UPLOAD_CHUNK_SIZE = 5 * 1024 * 1024;
+const UPLOAD_MAX_RETRIES = 5;
+
+export const uploadsAPI = {
+  createSession: (data) => api.post('/api/uploads', data),
+  getSession: (uploadId) => api.get(`/api/uploads/${uploadId}`),
+  cancelSession: (uploadId) => api.delete(`/api/uploads/${uploadId}`),
+  uploadChunk: (uploadId, offset, chunk) => {
+    return api.put(`/api/uploads/${uploadId}/chunks`, chunk, {
+      params: { offset },
+      headers: {
+        'Content-Type': 'application/octet-stream',
+      },
+    });
+  },
+  completeSession: (uploadId) => api.post(`/api/uploads/${uploadId}/complete`),
+
+  // Sends the file in chunks; after a failed chunk asks the server how much arrived and resumes there
+  uploadFile: async (file, { title, description } = {}, onProgress) => {
+    const { data: session } = await uploadsAPI.createSession({
+      fileName: file.name,
+      fileSize: file.size,
+      title,
+      description,
+    });
+
+    let offset = 0;
+    let retries = 0;
+    while (offset < file.size) {
+      try {
+        const chunk = file.slice(offset, offset + UPLOAD_CHUNK_SIZE);
+        const { data } = await uploadsAPI.uploadChunk(session.id, offset, chunk);
+        offset = data.receivedBytes;
+        retries = 0;
+        onProgress?.(offset / file.size);
+      } catch (error) {
+        const status = error.response?.status;
+        if (retries >= UPLOAD_MAX_RETRIES || (status && status !== 409 && status < 500)) {
+          throw error;
+        }
+        retries += 1;
+        await new Promise((resolve) => setTimeout(resolve, 1000 * retries));
+        const { data } = await uploadsAPI.getSession(session.id);
+        offset = data.receivedBytes;
+      }
+    }
+
+    return uploadsAPI.completeSession(session.id);
+  },
 };
 
 export default api;